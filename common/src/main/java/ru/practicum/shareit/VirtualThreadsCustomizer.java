@@ -0,0 +1,91 @@
+package ru.practicum.shareit;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.stereotype.Component;
+
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Opt-in mode that runs every servlet request on its own virtual thread instead of Tomcat's fixed pool, so requests
+ * waiting for the database in the server, or for the server in the gateway, no longer exhaust 200 platform threads.
+ * Shared by both applications and enabled in each through its own {@code shareit.threads.virtual.*} properties. Needs
+ * Java 21; the API is reached through reflection because the code is still compiled for Java 11.
+ * <p>
+ * Hibernate, the JDBC driver and HttpClient block inside {@code synchronized} in places, which pins a virtual thread
+ * to its carrier. Pins longer than {@code pinned-threshold} are recorded with stack traces to {@code pinned-recording},
+ * readable with {@code jfr print --events jdk.VirtualThreadPinned}; {@code trace-pinned=short|full} also prints them
+ * as they happen.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadsCustomizer implements WebServerFactoryCustomizer<TomcatServletWebServerFactory>,
+        DisposableBean {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private final ExecutorService executor;
+    private final Recording pinnedRecording;
+
+    @Autowired
+    public VirtualThreadsCustomizer(@Value("${shareit.threads.virtual.trace-pinned:}") String tracePinned,
+                                    @Value("${shareit.threads.virtual.pinned-threshold:20ms}") Duration pinnedThreshold,
+                                    @Value("${shareit.threads.virtual.pinned-recording:pinned-threads.jfr}")
+                                    Path pinnedRecording) throws IOException {
+        if (!tracePinned.isBlank()) {
+            // read once, when the first virtual thread is created
+            System.setProperty("jdk.tracePinnedThreads", tracePinned);
+        }
+        executor = newVirtualThreadPerTaskExecutor("http-virtual-");
+
+        this.pinnedRecording = new Recording();
+        this.pinnedRecording.setName("pinned-virtual-threads");
+        this.pinnedRecording.enable(PINNED_EVENT).withThreshold(pinnedThreshold).withStackTrace();
+        this.pinnedRecording.setToDisk(true);
+        this.pinnedRecording.setDestination(pinnedRecording);
+        this.pinnedRecording.start();
+
+        log.info("Servlet requests run on virtual threads, pins longer than {} are recorded to {}",
+                pinnedThreshold, pinnedRecording.toAbsolutePath());
+    }
+
+    @Override
+    public void customize(TomcatServletWebServerFactory factory) {
+        factory.addProtocolHandlerCustomizers(protocolHandler -> protocolHandler.setExecutor(executor));
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+        // written to the destination on stop
+        pinnedRecording.stop();
+        pinnedRecording.close();
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor(String namePrefix) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, threadFactory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads need Java 21 or newer, running on " +
+                    Runtime.version(), e);
+        }
+    }
+}
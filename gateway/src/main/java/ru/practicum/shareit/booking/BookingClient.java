@@ -1,18 +1,25 @@
 package ru.practicum.shareit.booking;
 
+import java.io.IOException;
 import java.util.Map;
+import java.util.Optional;
+
+import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 
 import ru.practicum.shareit.booking.dto.BookingPostDto;
 import ru.practicum.shareit.booking.dto.BookingState;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ReactiveServerConnector;
+import ru.practicum.shareit.client.ServerConnectionPool;
+import ru.practicum.shareit.client.SingleFlight;
 
 @Service
 public class BookingClient extends BaseClient {
@@ -20,16 +27,21 @@ public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
 
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                         ServerConnectionPool connectionPool,
+                         Optional<ReactiveServerConnector> reactiveConnector,
+                         SingleFlight singleFlight) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(connectionPool::requestFactory)
+                        .build(),
+                reactiveConnector.map(connector -> connector.webClient(serverUrl + API_PREFIX)).orElse(null),
+                singleFlight
         );
     }
 
-    public ResponseEntity<Object> getBookings(long userId, BookingState state, Integer from, Integer size) {
+    public Mono<ResponseEntity<Object>> getBookings(long userId, BookingState state, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "state", state.name(),
                 "from", from,
@@ -38,21 +50,34 @@ public class BookingClient extends BaseClient {
         return get("?state={state}&from={from}&size={size}", userId, parameters);
     }
 
+    public Mono<ResponseEntity<Object>> getBookingsAfter(long userId, BookingState state, String cursor, Integer size) {
+        Map<String, Object> parameters = Map.of(
+                "state", state.name(),
+                "cursor", cursor,
+                "size", size
+        );
+        return get("?state={state}&cursor={cursor}&size={size}", userId, parameters);
+    }
+
+    public Mono<ResponseEntity<Object>> countBookings(long userId, BookingState state) {
+        Map<String, Object> parameters = Map.of("state", state.name());
+        return get("/count?state={state}", userId, parameters);
+    }
 
-    public ResponseEntity<Object> addBooking(long userId, BookingPostDto requestDto) {
+    public Mono<ResponseEntity<Object>> addBooking(long userId, BookingPostDto requestDto) {
         return post("", userId, requestDto);
     }
 
-    public ResponseEntity<Object> getBooking(long userId, Long bookingId) {
+    public Mono<ResponseEntity<Object>> getBooking(long userId, Long bookingId) {
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> approve(Long bookingId, Boolean approved, Long ownerId) {
+    public Mono<ResponseEntity<Object>> approve(Long bookingId, Boolean approved, Long ownerId) {
         Map<String, Object> parameters = Map.of("approved", approved);
         return patch("/" + bookingId + "?approved={approved}", ownerId, parameters, null);
     }
 
-    public ResponseEntity<Object> getBookingsByOwner(long userId, BookingState state, Integer from, Integer size) {
+    public Mono<ResponseEntity<Object>> getBookingsByOwner(long userId, BookingState state, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "state", state.name(),
                 "from", from,
@@ -60,4 +85,24 @@ public class BookingClient extends BaseClient {
         );
         return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
     }
+
+    public Mono<ResponseEntity<Object>> getBookingsByOwnerAfter(long userId, BookingState state, String cursor, Integer size) {
+        Map<String, Object> parameters = Map.of(
+                "state", state.name(),
+                "cursor", cursor,
+                "size", size
+        );
+        return get("/owner?state={state}&cursor={cursor}&size={size}", userId, parameters);
+    }
+
+    public Mono<ResponseEntity<Object>> countBookingsByOwner(long userId, BookingState state) {
+        Map<String, Object> parameters = Map.of("state", state.name());
+        return get("/owner/count?state={state}", userId, parameters);
+    }
+
+    public void exportBookingsByOwner(long userId, BookingState state, HttpServletResponse response)
+            throws IOException {
+        Map<String, Object> parameters = Map.of("state", state.name());
+        stream("/owner/export?state={state}", userId, parameters, response);
+    }
 }
@@ -1,5 +1,8 @@
 package ru.practicum.shareit.booking;
 
+import java.io.IOException;
+
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
@@ -18,6 +21,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.booking.dto.BookingPostDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.exception.IllegalStateArgumentException;
@@ -32,44 +36,94 @@ public class BookingController {
     private final BookingClient bookingClient;
 
     @GetMapping
-    public ResponseEntity<Object> getBookings(@RequestHeader("X-Sharer-User-Id") long userId,
-                                              @RequestParam(name = "state", defaultValue = "all") String stateParam,
-                                              @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                              @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+    public Mono<ResponseEntity<Object>> getBookings(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                    @RequestParam(name = "state", defaultValue = "all") String stateParam,
+                                                    @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
+                                                    @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
         BookingState state = BookingState.from(stateParam)
                 .orElseThrow(() -> new IllegalStateArgumentException("Unknown state: " + stateParam));
         log.info("Get booking with state {}, userId={}, from={}, size={}", stateParam, userId, from, size);
         return bookingClient.getBookings(userId, state, from, size);
     }
 
+    @GetMapping(params = "cursor")
+    public Mono<ResponseEntity<Object>> getBookingsAfter(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                         @RequestParam(name = "state", defaultValue = "all") String stateParam,
+                                                         @RequestParam String cursor,
+                                                         @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+        BookingState state = BookingState.from(stateParam)
+                .orElseThrow(() -> new IllegalStateArgumentException("Unknown state: " + stateParam));
+        log.info("Get booking with state {}, userId={}, cursor={}, size={}", stateParam, userId, cursor, size);
+        return bookingClient.getBookingsAfter(userId, state, cursor, size);
+    }
+
+    @GetMapping("/count")
+    public Mono<ResponseEntity<Object>> countBookings(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                      @RequestParam(name = "state", defaultValue = "all") String stateParam) {
+        BookingState state = BookingState.from(stateParam)
+                .orElseThrow(() -> new IllegalStateArgumentException("Unknown state: " + stateParam));
+        log.info("Count bookings with state {}, userId={}", stateParam, userId);
+        return bookingClient.countBookings(userId, state);
+    }
+
     @PostMapping
-    public ResponseEntity<Object> addBooking(@RequestHeader("X-Sharer-User-Id") long userId,
-                                             @RequestBody @Valid BookingPostDto requestDto) {
+    public Mono<ResponseEntity<Object>> addBooking(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                   @RequestBody @Valid BookingPostDto requestDto) {
         log.info("Creating booking {}, userId={}", requestDto, userId);
         return bookingClient.addBooking(userId, requestDto);
     }
 
     @GetMapping("/{bookingId}")
-    public ResponseEntity<Object> getBooking(@RequestHeader("X-Sharer-User-Id") long userId,
-                                             @PathVariable Long bookingId) {
+    public Mono<ResponseEntity<Object>> getBooking(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                   @PathVariable Long bookingId) {
         log.info("Get booking {}, userId={}", bookingId, userId);
         return bookingClient.getBooking(userId, bookingId);
     }
 
     @PatchMapping("/{bookingId}")
-    public ResponseEntity<Object> approve(@PathVariable Long bookingId, @RequestParam Boolean approved,
-                                          @RequestHeader("X-Sharer-User-Id") Long ownerId) {
+    public Mono<ResponseEntity<Object>> approve(@PathVariable Long bookingId, @RequestParam Boolean approved,
+                                                @RequestHeader("X-Sharer-User-Id") Long ownerId) {
         return bookingClient.approve(bookingId, approved, ownerId);
     }
 
     @GetMapping("/owner")
-    public ResponseEntity<Object> getBookingsByOwnerId(@RequestHeader("X-Sharer-User-Id") long userId,
-                                                       @RequestParam(name = "state", defaultValue = "all") String stateParam,
-                                                       @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                                       @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+    public Mono<ResponseEntity<Object>> getBookingsByOwnerId(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                             @RequestParam(name = "state", defaultValue = "all") String stateParam,
+                                                             @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
+                                                             @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
         BookingState state = BookingState.from(stateParam)
                 .orElseThrow(() -> new IllegalStateArgumentException("Unknown state: " + stateParam));
         log.info("Get booking with state {}, userId={}, from={}, size={}", stateParam, userId, from, size);
         return bookingClient.getBookingsByOwner(userId, state, from, size);
     }
+
+    @GetMapping(path = "/owner", params = "cursor")
+    public Mono<ResponseEntity<Object>> getBookingsByOwnerIdAfter(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                                  @RequestParam(name = "state", defaultValue = "all") String stateParam,
+                                                                  @RequestParam String cursor,
+                                                                  @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+        BookingState state = BookingState.from(stateParam)
+                .orElseThrow(() -> new IllegalStateArgumentException("Unknown state: " + stateParam));
+        log.info("Get booking with state {}, userId={}, cursor={}, size={}", stateParam, userId, cursor, size);
+        return bookingClient.getBookingsByOwnerAfter(userId, state, cursor, size);
+    }
+
+    @GetMapping("/owner/count")
+    public Mono<ResponseEntity<Object>> countBookingsByOwnerId(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                               @RequestParam(name = "state", defaultValue = "all") String stateParam) {
+        BookingState state = BookingState.from(stateParam)
+                .orElseThrow(() -> new IllegalStateArgumentException("Unknown state: " + stateParam));
+        log.info("Count bookings with state {}, ownerId={}", stateParam, userId);
+        return bookingClient.countBookingsByOwner(userId, state);
+    }
+
+    @GetMapping("/owner/export")
+    public void exportBookingsByOwnerId(@RequestHeader("X-Sharer-User-Id") long userId,
+                                        @RequestParam(name = "state", defaultValue = "all") String stateParam,
+                                        HttpServletResponse response) throws IOException {
+        BookingState state = BookingState.from(stateParam)
+                .orElseThrow(() -> new IllegalStateArgumentException("Unknown state: " + stateParam));
+        log.info("Export bookings with state {}, ownerId={}", stateParam, userId);
+        bookingClient.exportBookingsByOwner(userId, state, response);
+    }
 }
@@ -1,121 +1,273 @@
 package ru.practicum.shareit.client;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.net.URI;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import reactor.core.publisher.Mono;
 
 public class BaseClient {
+
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of("connection", "keep-alive", "transfer-encoding",
+            "te", "trailer", "upgrade", "proxy-authenticate", "proxy-authorization");
+
     protected final RestTemplate rest;
+    @Nullable
+    private final WebClient webClient;
+    @Nullable
+    private final SingleFlight singleFlight;
 
     public BaseClient(RestTemplate rest) {
+        this(rest, null, null);
+    }
+
+    /**
+     * @param webClient    when present, the request helpers send through it and never block the calling thread
+     * @param singleFlight when present, {@link #getShared} coalesces concurrent identical requests through it
+     */
+    public BaseClient(RestTemplate rest, @Nullable WebClient webClient, @Nullable SingleFlight singleFlight) {
         this.rest = rest;
+        this.webClient = webClient;
+        this.singleFlight = singleFlight;
     }
 
-    protected ResponseEntity<Object> get(String path) {
+    protected Mono<ResponseEntity<Object>> get(String path) {
         return get(path, null, null);
     }
 
-    protected ResponseEntity<Object> get(String path, long userId) {
+    protected Mono<ResponseEntity<Object>> get(String path, long userId) {
         return get(path, userId, null);
     }
 
-    protected ResponseEntity<Object> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
+    protected Mono<ResponseEntity<Object>> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, T body) {
+    /**
+     * A GET whose response concurrent identical requests of the same user can share: they wait for one call to the
+     * server instead of each sending their own. The body is collected as bytes, so use it for small, hot responses.
+     */
+    protected Mono<ResponseEntity<Object>> getShared(String path, Long userId, @Nullable Map<String, Object> parameters) {
+        return getShared(path, userId, parameters, true);
+    }
+
+    /**
+     * @param perUser false when the response does not depend on the caller, so that requests of different users share
+     *                one call; the caller must then check the user itself, as the shared call is sent on behalf of
+     *                whichever user started it
+     */
+    protected Mono<ResponseEntity<Object>> getShared(String path, Long userId, @Nullable Map<String, Object> parameters,
+                                                     boolean perUser) {
+        if (singleFlight == null) {
+            return get(path, userId, parameters);
+        }
+        String key = getClass().getSimpleName() + " " + path + " " +
+                (parameters != null ? new TreeMap<>(parameters) : "{}") + (perUser ? " " + userId : "");
+        return singleFlight.execute(key, () -> webClient != null
+                ? exchangeReactive(HttpMethod.GET, path, userId, parameters, null)
+                : Mono.fromCallable(() -> exchange(HttpMethod.GET, path, userId, parameters, null, true)));
+    }
+
+    protected <T> Mono<ResponseEntity<Object>> post(String path, T body) {
         return post(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> post(String path, long userId, T body) {
         return post(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> put(String path, long userId, T body) {
         return put(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, T body) {
         return patch(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, long userId) {
         return patch(path, userId, null, null);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, long userId, T body) {
         return patch(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body);
     }
 
-    protected ResponseEntity<Object> delete(String path) {
+    protected Mono<ResponseEntity<Object>> delete(String path) {
         return delete(path, null, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, long userId) {
+    protected Mono<ResponseEntity<Object>> delete(String path, long userId) {
         return delete(path, userId, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
+    protected Mono<ResponseEntity<Object>> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
-    private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
+    /**
+     * Copies the server's response to {@code servletResponse} as it arrives, without parsing it, so large
+     * NDJSON exports pass through the gateway in constant memory.
+     */
+    protected void stream(String path, Long userId, @Nullable Map<String, Object> parameters,
+                          HttpServletResponse servletResponse) throws IOException {
+        RequestCallback requestCallback = request -> {
+            request.getHeaders().setAccept(List.of(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON));
+            if (userId != null) {
+                request.getHeaders().set("X-Sharer-User-Id", String.valueOf(userId));
+            }
+        };
+        ResponseExtractor<Void> responseExtractor = response -> {
+            copyStatusAndContentType(response.getRawStatusCode(), response.getHeaders(), servletResponse);
+            StreamUtils.copy(response.getBody(), servletResponse.getOutputStream());
+            return null;
+        };
 
-        ResponseEntity<Object> shareitServerResponse;
         try {
-            if (parameters != null) {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class, parameters);
-            } else {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class);
-            }
+            rest.execute(path, HttpMethod.GET, requestCallback, responseExtractor,
+                    parameters != null ? parameters : Map.of());
         } catch (HttpStatusCodeException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+            copyStatusAndContentType(e.getRawStatusCode(), e.getResponseHeaders(), servletResponse);
+            servletResponse.getOutputStream().write(e.getResponseBodyAsByteArray());
         }
-        return prepareGatewayResponse(shareitServerResponse);
     }
 
-    private HttpHeaders defaultHeaders(Long userId) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
-        if (userId != null) {
-            headers.set("X-Sharer-User-Id", String.valueOf(userId));
+    private static void copyStatusAndContentType(int status, @Nullable HttpHeaders headers,
+                                                 HttpServletResponse servletResponse) {
+        servletResponse.setStatus(status);
+        if (headers != null && headers.getContentType() != null) {
+            servletResponse.setContentType(headers.getContentType().toString());
         }
-        return headers;
     }
 
-    private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
-        if (response.getStatusCode().is2xxSuccessful()) {
-            return response;
+    private <T> Mono<ResponseEntity<Object>> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        if (webClient != null) {
+            return exchangeReactive(method, path, userId, parameters, body);
+        }
+        // runs on the calling request thread once the controller's result is subscribed to
+        return Mono.fromCallable(() -> exchange(method, path, userId, parameters, body, false));
+    }
+
+    /**
+     * Sends the request and hands the server's status, headers and body back untouched. The body is wrapped in a
+     * resource that the MVC layer copies to the client through a small buffer, so it is never parsed here and the
+     * gateway's work does not grow with the response size. The upstream connection is released once the body is
+     * copied. A buffered body is read into bytes right away instead, so the response can be written more than once.
+     */
+    private <T> ResponseEntity<Object> exchange(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body, boolean buffered) {
+        URI uri = parameters != null
+                ? rest.getUriTemplateHandler().expand(path, parameters)
+                : rest.getUriTemplateHandler().expand(path);
+
+        ClientHttpResponse response;
+        try {
+            ClientHttpRequest request = rest.getRequestFactory().createRequest(uri, method);
+            rest.httpEntityCallback(new HttpEntity<>(body, defaultHeaders(userId))).doWithRequest(request);
+            response = request.execute();
+        } catch (IOException e) {
+            throw new ResourceAccessException("I/O error on " + method + " request for \"" + uri + "\": " +
+                    e.getMessage(), e);
         }
+        return passThrough(response, buffered);
+    }
+
+    /**
+     * The same exchange without a thread waiting for it: the body is collected as bytes, still unparsed, and the
+     * result is completed on the connection's event loop.
+     */
+    private <T> Mono<ResponseEntity<Object>> exchangeReactive(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        WebClient.RequestBodySpec request = webClient.method(method)
+                .uri(path, parameters != null ? parameters : Map.of())
+                .headers(headers -> headers.addAll(defaultHeaders(userId)));
+        WebClient.RequestHeadersSpec<?> spec = body != null ? request.bodyValue(body) : request;
+
+        return spec.exchangeToMono(response -> response.toEntity(byte[].class))
+                .map(response -> {
+                    ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCodeValue())
+                            .headers(endToEndHeaders(response.getHeaders()));
+                    return response.hasBody() ? responseBuilder.body(response.getBody()) : responseBuilder.build();
+                });
+    }
 
-        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
+    private static ResponseEntity<Object> passThrough(ClientHttpResponse response, boolean buffered) {
+        try {
+            HttpHeaders headers = endToEndHeaders(response.getHeaders());
+            ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getRawStatusCode())
+                    .headers(headers);
 
-        if (response.hasBody()) {
-            return responseBuilder.body(response.getBody());
+            if (headers.getContentType() == null) {
+                response.close();
+                return responseBuilder.build();
+            }
+            if (buffered) {
+                try (response) {
+                    return responseBuilder.body(StreamUtils.copyToByteArray(response.getBody()));
+                }
+            }
+            return responseBuilder.body(new InputStreamResource(new FilterInputStream(response.getBody()) {
+                @Override
+                public void close() {
+                    response.close();
+                }
+            }));
+        } catch (IOException e) {
+            response.close();
+            throw new ResourceAccessException("I/O error on reading response: " + e.getMessage(), e);
         }
+    }
 
-        return responseBuilder.build();
+    private static HttpHeaders endToEndHeaders(HttpHeaders upstreamHeaders) {
+        HttpHeaders headers = new HttpHeaders();
+        upstreamHeaders.forEach((name, values) -> {
+            if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                headers.addAll(name, values);
+            }
+        });
+        return headers;
+    }
+
+    private HttpHeaders defaultHeaders(Long userId) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        if (userId != null) {
+            headers.set("X-Sharer-User-Id", String.valueOf(userId));
+        }
+        return headers;
     }
 }
@@ -0,0 +1,76 @@
+package ru.practicum.shareit.client;
+
+import java.time.Duration;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Non-blocking connections to the server, used by the clients when {@code shareit-server.client.mode=reactive}.
+ * Requests waiting for a connection are queued in the pool instead of holding a thread, so the number of calls in
+ * flight is bounded by {@code max-pending} rather than by the servlet thread pool. The pool publishes
+ * {@code reactor.netty.connection.provider.*} meters.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit-server.client.mode", havingValue = "reactive")
+public class ReactiveServerConnector {
+
+    private static final String POOL_NAME = "shareit-server";
+
+    private final ConnectionProvider connectionProvider;
+    private final WebClient.Builder webClientBuilder;
+
+    @Autowired
+    public ReactiveServerConnector(@Value("${shareit-server.http.max-total:200}") int maxTotal,
+                                   @Value("${shareit-server.http.max-pending:50000}") int maxPending,
+                                   @Value("${shareit-server.http.connect-timeout:2s}") Duration connectTimeout,
+                                   @Value("${shareit-server.http.read-timeout:30s}") Duration readTimeout,
+                                   @Value("${shareit-server.http.lease-timeout:2s}") Duration leaseTimeout,
+                                   @Value("${shareit-server.http.max-idle:10s}") Duration maxIdle,
+                                   @Value("${shareit-server.http.max-body-size:16MB}") DataSize maxBodySize,
+                                   WebClient.Builder webClientBuilder) {
+        connectionProvider = ConnectionProvider.builder(POOL_NAME)
+                .maxConnections(maxTotal)
+                .pendingAcquireMaxCount(maxPending)
+                .pendingAcquireTimeout(leaseTimeout)
+                .maxIdleTime(maxIdle)
+                .evictInBackground(maxIdle)
+                .metrics(true)
+                .build();
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(readTimeout);
+
+        this.webClientBuilder = webClientBuilder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize((int) maxBodySize.toBytes()));
+        log.info("Reactive client mode: {} connections to the server, up to {} calls waiting for one",
+                maxTotal, maxPending);
+    }
+
+    public WebClient webClient(String baseUrl) {
+        return webClientBuilder.clone()
+                .uriBuilderFactory(new DefaultUriBuilderFactory(baseUrl))
+                .build();
+    }
+
+    @PreDestroy
+    void close() {
+        connectionProvider.dispose();
+    }
+}
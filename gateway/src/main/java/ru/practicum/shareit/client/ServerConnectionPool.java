@@ -0,0 +1,92 @@
+package ru.practicum.shareit.client;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * One pool of keep-alive connections to the server shared by every client of the gateway. Connections idle for
+ * longer than {@code max-idle} are closed before the server drops them, a lease waits at most
+ * {@code lease-timeout}, and the pool's leased, available and pending counts are published as
+ * {@code httpcomponents.httpclient.pool.*} meters.
+ */
+@Slf4j
+@Component
+public class ServerConnectionPool {
+
+    private static final String POOL_NAME = "shareit-server";
+
+    private final CloseableHttpClient httpClient;
+
+    @Autowired
+    public ServerConnectionPool(@Value("${shareit-server.http.max-total:200}") int maxTotal,
+                                @Value("${shareit-server.http.max-per-route:200}") int maxPerRoute,
+                                @Value("${shareit-server.http.connect-timeout:2s}") Duration connectTimeout,
+                                @Value("${shareit-server.http.read-timeout:30s}") Duration readTimeout,
+                                @Value("${shareit-server.http.lease-timeout:2s}") Duration leaseTimeout,
+                                @Value("${shareit-server.http.keep-alive:15s}") Duration keepAlive,
+                                @Value("${shareit-server.http.max-idle:10s}") Duration maxIdle,
+                                MeterRegistry meterRegistry) {
+        var connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        // a connection the server closed while idle is detected before it is leased again
+        connectionManager.setValidateAfterInactivity((int) Math.min(maxIdle.toMillis(), 2_000));
+
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout((int) connectTimeout.toMillis())
+                        .setSocketTimeout((int) readTimeout.toMillis())
+                        .setConnectionRequestTimeout((int) leaseTimeout.toMillis())
+                        .build())
+                .setKeepAliveStrategy((response, context) -> {
+                    long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE
+                            .getKeepAliveDuration(response, context);
+                    return serverKeepAlive > 0
+                            ? Math.min(serverKeepAlive, keepAlive.toMillis())
+                            : keepAlive.toMillis();
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(maxIdle.toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, POOL_NAME).bindTo(meterRegistry);
+        log.info("Connection pool to the server: {} connections in total, {} per route", maxTotal, maxPerRoute);
+    }
+
+    public ClientHttpRequestFactory requestFactory() {
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+
+    /**
+     * A factory that writes request bodies straight to the connection instead of collecting them first.
+     */
+    public ClientHttpRequestFactory streamingRequestFactory() {
+        var requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        requestFactory.setBufferRequestBody(false);
+        return requestFactory;
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        httpClient.close();
+    }
+}
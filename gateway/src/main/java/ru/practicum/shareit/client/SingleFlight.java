@@ -0,0 +1,78 @@
+package ru.practicum.shareit.client;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Shares one call to the server between concurrent identical requests. The first request under a key makes the call,
+ * requests arriving while it is in flight wait for its response instead of sending their own. The key is released
+ * when the call completes, so responses are never reused afterwards. When {@code max-in-flight} keys are taken,
+ * further requests bypass the table.
+ */
+@Component
+public class SingleFlight {
+
+    private final ConcurrentMap<String, Mono<ResponseEntity<Object>>> inFlight = new ConcurrentHashMap<>();
+    private final int maxInFlight;
+
+    private final Counter calls;
+    private final Counter coalesced;
+    private final Counter bypassed;
+
+    @Autowired
+    public SingleFlight(@Value("${shareit-server.single-flight.max-in-flight:10000}") int maxInFlight,
+                        MeterRegistry meterRegistry) {
+        this.maxInFlight = maxInFlight;
+        Gauge.builder("gateway.single.flight.in.flight", inFlight, ConcurrentMap::size)
+                .description("Calls to the server currently shared by key")
+                .register(meterRegistry);
+        calls = counter(meterRegistry, "call", "Requests that made the call for their key");
+        coalesced = counter(meterRegistry, "coalesced", "Requests served by a call already in flight");
+        bypassed = counter(meterRegistry, "bypassed", "Requests not shared because the table was full");
+    }
+
+    public Mono<ResponseEntity<Object>> execute(String key, Supplier<Mono<ResponseEntity<Object>>> call) {
+        return Mono.defer(() -> {
+            Mono<ResponseEntity<Object>> shared = inFlight.get(key);
+            if (shared != null) {
+                coalesced.increment();
+                return shared;
+            }
+            if (inFlight.size() >= maxInFlight) {
+                bypassed.increment();
+                return call.get();
+            }
+
+            AtomicReference<Mono<ResponseEntity<Object>>> created = new AtomicReference<>();
+            shared = inFlight.computeIfAbsent(key, k -> {
+                Mono<ResponseEntity<Object>> result = call.get()
+                        .doFinally(signal -> inFlight.remove(k, created.get()))
+                        // the call goes on for the others when the request that started it is cancelled
+                        .cache();
+                created.set(result);
+                return result;
+            });
+            (shared == created.get() ? calls : coalesced).increment();
+            return shared;
+        });
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result, String description) {
+        return Counter.builder("gateway.single.flight.requests")
+                .description(description)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
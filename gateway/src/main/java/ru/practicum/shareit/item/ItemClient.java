@@ -1,35 +1,164 @@
 package ru.practicum.shareit.item;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.util.Comparator.comparingInt;
+import static java.util.stream.Collectors.joining;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.StreamingHttpOutputMessage;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ReactiveServerConnector;
+import ru.practicum.shareit.client.ServerConnectionPool;
+import ru.practicum.shareit.client.SingleFlight;
+import ru.practicum.shareit.user.UserClient;
 
 @Service
 public class ItemClient extends BaseClient {
 
     private static final String API_PREFIX = "/items";
+    private static final TypeReference<List<ItemBulkResultDto>> BULK_RESULTS = new TypeReference<>() {
+    };
+
+    // built without the builder's interceptors, which would collect the whole body in memory before sending it
+    private final RestTemplate streamingRest;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader itemReader;
+    private final ObjectWriter itemWriter;
+    private final Validator validator;
+    private final UserClient userClient;
 
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                      ServerConnectionPool connectionPool,
+                      Optional<ReactiveServerConnector> reactiveConnector,
+                      SingleFlight singleFlight,
+                      ObjectMapper objectMapper, Validator validator, UserClient userClient) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(connectionPool::requestFactory)
+                        .build(),
+                reactiveConnector.map(connector -> connector.webClient(serverUrl + API_PREFIX)).orElse(null),
+                singleFlight
         );
+        this.streamingRest = new RestTemplate(connectionPool.streamingRequestFactory());
+        this.streamingRest.setUriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX));
+        this.objectMapper = objectMapper;
+        this.itemReader = objectMapper.readerFor(ItemDto.class);
+        this.itemWriter = objectMapper.writerFor(ItemDto.class);
+        this.validator = validator;
+        this.userClient = userClient;
     }
 
-    public ResponseEntity<Object> createItem(ItemDto itemDto, Long ownerId) {
+    public Mono<ResponseEntity<Object>> createItem(ItemDto itemDto, Long ownerId) {
         return post("", ownerId, itemDto);
     }
 
-    public ResponseEntity<Object> getAllItems(Long ownerId, Integer from, Integer size) {
+    /**
+     * Reads items from a JSON array or NDJSON one at a time and streams the valid ones to the server as NDJSON.
+     * Rows rejected here are merged into the server's per-row results under their original index.
+     */
+    public ResponseEntity<Object> createItems(Long ownerId, InputStream items) {
+        List<Integer> forwarded = new ArrayList<>();
+        List<ItemBulkResultDto> results = new ArrayList<>();
+
+        List<ItemBulkResultDto> serverResults;
+        try {
+            serverResults = streamingRest.execute("/bulk", HttpMethod.POST, request -> {
+                request.getHeaders().setContentType(MediaType.APPLICATION_NDJSON);
+                request.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON));
+                request.getHeaders().set("X-Sharer-User-Id", String.valueOf(ownerId));
+                ((StreamingHttpOutputMessage) request).setBody(body ->
+                        forwardValidItems(items, body, forwarded, results));
+            }, response -> objectMapper.readValue(response.getBody(), BULK_RESULTS));
+        } catch (HttpStatusCodeException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+        }
+
+        if (serverResults != null) {
+            for (ItemBulkResultDto result : serverResults) {
+                result.setIndex(forwarded.get(result.getIndex()));
+                results.add(result);
+            }
+        }
+        results.sort(comparingInt(ItemBulkResultDto::getIndex));
+        return ResponseEntity.ok(results);
+    }
+
+    private void forwardValidItems(InputStream items, OutputStream body, List<Integer> forwarded,
+                                   List<ItemBulkResultDto> rejected) throws IOException {
+        try (MappingIterator<ItemDto> rows = itemReader.readValues(items)) {
+            for (int index = 0; ; index++) {
+                ItemDto itemDto;
+                try {
+                    if (!rows.hasNextValue()) {
+                        break;
+                    }
+                    itemDto = rows.nextValue();
+                } catch (JsonMappingException e) {
+                    rejected.add(failed(index, "Row is not an item: " + e.getOriginalMessage()));
+                    continue;
+                } catch (JsonProcessingException e) {
+                    rejected.add(failed(index, "Malformed JSON: " + e.getOriginalMessage()));
+                    break;
+                }
+
+                Set<ConstraintViolation<ItemDto>> violations = validator.validate(itemDto);
+                if (!violations.isEmpty()) {
+                    rejected.add(failed(index, violations.stream()
+                            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                            .sorted()
+                            .collect(joining("; "))));
+                    continue;
+                }
+
+                body.write(itemWriter.writeValueAsBytes(itemDto));
+                body.write('\n');
+                forwarded.add(index);
+            }
+        }
+        body.flush();
+    }
+
+    private static ItemBulkResultDto failed(int index, String error) {
+        return ItemBulkResultDto.builder()
+                .index(index)
+                .error(error)
+                .build();
+    }
+
+    public Mono<ResponseEntity<Object>> getAllItems(Long ownerId, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
@@ -37,25 +166,69 @@ public class ItemClient extends BaseClient {
         return get("?from={from}&size={size}", ownerId, parameters);
     }
 
-    public ResponseEntity<Object> getItem(Long itemId, Long userId) {
-        return get("/" + itemId, userId);
+    public void exportItems(Long ownerId, HttpServletResponse response) throws IOException {
+        stream("/export", ownerId, null, response);
     }
 
-    public ResponseEntity<Object> updateItem(long itemId, long userId, ItemDto itemDto) {
-        return patch("/" + userId, itemId, itemDto);
+    public Mono<ResponseEntity<Object>> getAllItemsAfter(Long ownerId, String cursor, Integer size) {
+        Map<String, Object> parameters = Map.of(
+                "cursor", cursor,
+                "size", size
+        );
+        return get("?cursor={cursor}&size={size}", ownerId, parameters);
     }
 
+    /**
+     * Not shared: the owner also gets the item's last and next bookings, and which caller owns it is known only to
+     * the server.
+     */
+    public Mono<ResponseEntity<Object>> getItem(Long itemId, Long userId) {
+        return get("/" + itemId, userId);
+    }
 
-    public ResponseEntity<Object> searchItems(Long userId, String text, Integer from, Integer size) {
+    public Mono<ResponseEntity<Object>> getAvailability(Long itemId, Long userId, LocalDateTime from, LocalDateTime to) {
         Map<String, Object> parameters = Map.of(
+                "from", from,
+                "to", to
+        );
+        return get("/" + itemId + "/availability?from={from}&to={to}", userId, parameters);
+    }
+
+    public Mono<ResponseEntity<Object>> updateItem(long itemId, long userId, ItemDto itemDto) {
+        return patch("/" + userId, itemId, itemDto);
+    }
+
+    /**
+     * Search results do not depend on the caller, so concurrent identical searches of different users share one call.
+     * The server only requires the user to exist, which is checked first through the shared user lookup; its error
+     * is returned as is. A blank text finds nothing for anyone and is sent straight through.
+     */
+    public Mono<ResponseEntity<Object>> searchItems(Long userId, String text, LocalDateTime start, LocalDateTime end,
+                                              Integer from, Integer size) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "text", text,
                 "from", from,
                 "size", size
-        );
-        return get("/search?text={text}&from={from}&size={size}", userId, parameters);
+        ));
+        StringBuilder path = new StringBuilder("/search?text={text}&from={from}&size={size}");
+        if (start != null) {
+            parameters.put("start", start);
+            path.append("&start={start}");
+        }
+        if (end != null) {
+            parameters.put("end", end);
+            path.append("&end={end}");
+        }
+        if (text.isBlank()) {
+            return get(path.toString(), userId, parameters);
+        }
+        return userClient.getUserById(userId)
+                .flatMap(user -> user.getStatusCode().is2xxSuccessful()
+                        ? getShared(path.toString(), userId, parameters, false)
+                        : Mono.just(user));
     }
 
-    public ResponseEntity<Object> createComment(Long itemId, Long userId, CommentDto commentDto) {
+    public Mono<ResponseEntity<Object>> createComment(Long itemId, Long userId, CommentDto commentDto) {
         return post("/" + itemId + "/comment", userId, commentDto);
     }
 }
@@ -1,9 +1,16 @@
 package ru.practicum.shareit.item;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,6 +24,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import lombok.AllArgsConstructor;
+import reactor.core.publisher.Mono;
 
 @RestController
 @RequestMapping(path = "/items")
@@ -27,48 +35,82 @@ public class ItemController {
     private final ItemClient itemClient;
 
     @PostMapping
-    public ResponseEntity<Object> createItem(@Valid @RequestBody ItemDto itemDto,
-                                             @RequestHeader("X-Sharer-User-Id") Long ownerId) {
+    public Mono<ResponseEntity<Object>> createItem(@Valid @RequestBody ItemDto itemDto,
+                                                   @RequestHeader("X-Sharer-User-Id") Long ownerId) {
         return itemClient.createItem(itemDto, ownerId);
     }
 
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<Object> createItems(@RequestHeader("X-Sharer-User-Id") Long ownerId,
+                                              InputStream items) {
+        return itemClient.createItems(ownerId, items);
+    }
+
     @GetMapping
-    public ResponseEntity<Object> getAllItems(@RequestHeader("X-Sharer-User-Id") Long ownerId,
-                                              @PositiveOrZero @RequestParam(name = "from", defaultValue = "0")
-                                                      Integer from,
-                                              @Positive @RequestParam(name = "size", defaultValue = "10")
-                                                      Integer size) {
+    public Mono<ResponseEntity<Object>> getAllItems(@RequestHeader("X-Sharer-User-Id") Long ownerId,
+                                                    @PositiveOrZero @RequestParam(name = "from", defaultValue = "0")
+                                                            Integer from,
+                                                    @Positive @RequestParam(name = "size", defaultValue = "10")
+                                                            Integer size) {
         return itemClient.getAllItems(ownerId, from, size);
     }
 
+    @GetMapping(params = "cursor")
+    public Mono<ResponseEntity<Object>> getAllItemsAfter(@RequestHeader("X-Sharer-User-Id") Long ownerId,
+                                                         @RequestParam String cursor,
+                                                         @Positive @RequestParam(name = "size", defaultValue = "10")
+                                                                 Integer size) {
+        return itemClient.getAllItemsAfter(ownerId, cursor, size);
+    }
+
+    @GetMapping("/export")
+    public void exportItems(@RequestHeader("X-Sharer-User-Id") Long ownerId,
+                            HttpServletResponse response) throws IOException {
+        itemClient.exportItems(ownerId, response);
+    }
+
     @GetMapping("/{itemId}")
-    public ResponseEntity<Object> getItem(@PathVariable Long itemId,
-                                          @RequestHeader("X-Sharer-User-Id") Long userId) {
+    public Mono<ResponseEntity<Object>> getItem(@PathVariable Long itemId,
+                                                @RequestHeader("X-Sharer-User-Id") Long userId) {
         return itemClient.getItem(itemId, userId);
     }
 
+    @GetMapping("/{itemId}/availability")
+    public Mono<ResponseEntity<Object>> getAvailability(@PathVariable Long itemId,
+                                                        @RequestHeader("X-Sharer-User-Id") Long userId,
+                                                        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                                LocalDateTime from,
+                                                        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                                LocalDateTime to) {
+        return itemClient.getAvailability(itemId, userId, from, to);
+    }
+
     @GetMapping("/search")
-    public ResponseEntity<Object> searchItems(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                              @RequestParam String text,
-                                              @PositiveOrZero @RequestParam(name = "from", defaultValue = "0")
-                                                      Integer from,
-                                              @Positive @RequestParam(name = "size", defaultValue = "10")
-                                                      Integer size) {
-        return itemClient.searchItems(userId, text, from, size);
+    public Mono<ResponseEntity<Object>> searchItems(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                    @RequestParam String text,
+                                                    @RequestParam(required = false)
+                                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+                                                    @RequestParam(required = false)
+                                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+                                                    @PositiveOrZero @RequestParam(name = "from", defaultValue = "0")
+                                                            Integer from,
+                                                    @Positive @RequestParam(name = "size", defaultValue = "10")
+                                                            Integer size) {
+        return itemClient.searchItems(userId, text, start, end, from, size);
     }
 
     @PatchMapping("/{itemId}")
-    public ResponseEntity<Object> updateItem(@PathVariable Long itemId,
-                                             @RequestBody ItemDto itemDto,
-                                             @RequestHeader(name = "X-Sharer-User-Id", required = false) Long ownerId) {
+    public Mono<ResponseEntity<Object>> updateItem(@PathVariable Long itemId,
+                                                   @RequestBody ItemDto itemDto,
+                                                   @RequestHeader(name = "X-Sharer-User-Id", required = false) Long ownerId) {
         return itemClient.updateItem(ownerId, itemId, itemDto);
 
     }
 
     @PostMapping("/{itemId}/comment")
-    public ResponseEntity<Object> createComment(@PathVariable Long itemId,
-                                                @RequestHeader("X-Sharer-User-Id") Long userId,
-                                                @Valid @RequestBody CommentDto commentDto) {
+    public Mono<ResponseEntity<Object>> createComment(@PathVariable Long itemId,
+                                                      @RequestHeader("X-Sharer-User-Id") Long userId,
+                                                      @Valid @RequestBody CommentDto commentDto) {
         return itemClient.createComment(itemId, userId, commentDto);
     }
 }
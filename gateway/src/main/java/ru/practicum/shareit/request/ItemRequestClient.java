@@ -1,16 +1,20 @@
 package ru.practicum.shareit.request;
 
 import java.util.Map;
+import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ReactiveServerConnector;
+import ru.practicum.shareit.client.ServerConnectionPool;
+import ru.practicum.shareit.client.SingleFlight;
 
 @Service
 public class ItemRequestClient extends BaseClient {
@@ -18,20 +22,25 @@ public class ItemRequestClient extends BaseClient {
     private static final String API_PREFIX = "/requests";
 
     @Autowired
-    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                             ServerConnectionPool connectionPool,
+                             Optional<ReactiveServerConnector> reactiveConnector,
+                             SingleFlight singleFlight) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(connectionPool::requestFactory)
+                        .build(),
+                reactiveConnector.map(connector -> connector.webClient(serverUrl + API_PREFIX)).orElse(null),
+                singleFlight
         );
     }
 
-    public ResponseEntity<Object> createRequest(ItemRequestPostDto itemRequestDto, Long userId) {
+    public Mono<ResponseEntity<Object>> createRequest(ItemRequestPostDto itemRequestDto, Long userId) {
         return post("", userId, itemRequestDto);
     }
 
-    public ResponseEntity<Object> getAllRequests(Long userId, Integer from, Integer size) {
+    public Mono<ResponseEntity<Object>> getAllRequests(Long userId, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
@@ -39,11 +48,19 @@ public class ItemRequestClient extends BaseClient {
         return get("/all?from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> getRequestById(Long requestId, Long userId) {
-        return get("/" + requestId, userId);
+    public Mono<ResponseEntity<Object>> getAllRequestsAfter(Long userId, String cursor, Integer size) {
+        Map<String, Object> parameters = Map.of(
+                "cursor", cursor,
+                "size", size
+        );
+        return get("/all?cursor={cursor}&size={size}", userId, parameters);
+    }
+
+    public Mono<ResponseEntity<Object>> getRequestById(Long requestId, Long userId) {
+        return getShared("/" + requestId, userId, null);
     }
 
-    public ResponseEntity<Object> getRequestsByUserId(Long userId) {
+    public Mono<ResponseEntity<Object>> getRequestsByUserId(Long userId) {
         return get("", userId);
     }
 }
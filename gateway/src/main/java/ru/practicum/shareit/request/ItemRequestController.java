@@ -16,6 +16,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
 
 @RestController
 @RequestMapping(path = "/requests")
@@ -26,28 +27,36 @@ public class ItemRequestController {
     private final ItemRequestClient itemRequestClient;
 
     @PostMapping
-    public ResponseEntity<Object> createRequest(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                                @RequestBody @Valid ItemRequestPostDto itemRequestPostDto) {
+    public Mono<ResponseEntity<Object>> createRequest(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                      @RequestBody @Valid ItemRequestPostDto itemRequestPostDto) {
         return itemRequestClient.createRequest(itemRequestPostDto, userId);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getItemRequestsByUserId(@RequestHeader("X-Sharer-User-Id") Long userId) {
+    public Mono<ResponseEntity<Object>> getItemRequestsByUserId(@RequestHeader("X-Sharer-User-Id") Long userId) {
         return itemRequestClient.getRequestsByUserId(userId);
     }
 
     @GetMapping("/all")
-    public ResponseEntity<Object> getAllRequests(@RequestHeader("X-Sharer-User-Id") long userId,
-                                                 @RequestParam(name = "from", defaultValue = "0")
-                                                 @PositiveOrZero int from,
-                                                 @RequestParam(name = "size", defaultValue = "10")
-                                                 @Positive int size) {
+    public Mono<ResponseEntity<Object>> getAllRequests(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                       @RequestParam(name = "from", defaultValue = "0")
+                                                       @PositiveOrZero int from,
+                                                       @RequestParam(name = "size", defaultValue = "10")
+                                                       @Positive int size) {
         return itemRequestClient.getAllRequests(userId, from, size);
     }
 
+    @GetMapping(path = "/all", params = "cursor")
+    public Mono<ResponseEntity<Object>> getAllRequestsAfter(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                            @RequestParam String cursor,
+                                                            @RequestParam(name = "size", defaultValue = "10")
+                                                            @Positive int size) {
+        return itemRequestClient.getAllRequestsAfter(userId, cursor, size);
+    }
+
     @GetMapping("/{requestId}")
-    public ResponseEntity<Object> getRequestById(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                                 @PathVariable @Positive Long requestId) {
+    public Mono<ResponseEntity<Object>> getRequestById(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                       @PathVariable @Positive Long requestId) {
         return itemRequestClient.getRequestById(requestId, userId);
     }
 }
@@ -1,15 +1,19 @@
 package ru.practicum.shareit.user;
 
+import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ReactiveServerConnector;
+import ru.practicum.shareit.client.ServerConnectionPool;
+import ru.practicum.shareit.client.SingleFlight;
 
 @Service
 public class UserClient extends BaseClient {
@@ -17,32 +21,37 @@ public class UserClient extends BaseClient {
     private static final String API_PREFIX = "/users";
 
     @Autowired
-    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                      ServerConnectionPool connectionPool,
+                      Optional<ReactiveServerConnector> reactiveConnector,
+                      SingleFlight singleFlight) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(connectionPool::requestFactory)
+                        .build(),
+                reactiveConnector.map(connector -> connector.webClient(serverUrl + API_PREFIX)).orElse(null),
+                singleFlight
         );
     }
 
-    public ResponseEntity<Object> add(UserDto userDto) {
+    public Mono<ResponseEntity<Object>> add(UserDto userDto) {
         return post("", userDto);
     }
 
-    public void deleteUser(Long userId) {
-        delete("/" + userId);
+    public Mono<ResponseEntity<Object>> deleteUser(Long userId) {
+        return delete("/" + userId);
     }
 
-    public ResponseEntity<Object> updateUser(UserDto userDto, Long userId) {
+    public Mono<ResponseEntity<Object>> updateUser(UserDto userDto, Long userId) {
         return patch("/" + userId, userId, userDto);
     }
 
-    public ResponseEntity<Object> getUserById(Long userId) {
-        return get("/" + userId);
+    public Mono<ResponseEntity<Object>> getUserById(Long userId) {
+        return getShared("/" + userId, null, null);
     }
 
-    public ResponseEntity<Object> getAllUsers() {
+    public Mono<ResponseEntity<Object>> getAllUsers() {
         return get("");
     }
 }
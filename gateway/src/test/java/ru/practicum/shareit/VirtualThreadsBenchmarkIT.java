@@ -0,0 +1,126 @@
+package ru.practicum.shareit;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import com.sun.net.httpserver.HttpServer;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compares the platform-thread and virtual-thread modes of the gateway in front of a server that answers every call
+ * after {@link #SERVER_LATENCY_MS} ms. With 200 Tomcat threads a burst of {@link #REQUESTS} requests is served in
+ * waves; on virtual threads only the connection pool limits it. The virtual mode is skipped below Java 21.
+ * Run with {@code mvn test -pl gateway -am -Dtest=VirtualThreadsBenchmarkIT -Dsurefire.failIfNoSpecifiedTests=false}.
+ */
+@Slf4j
+class VirtualThreadsBenchmarkIT {
+
+    private static final int SERVER_LATENCY_MS = 100;
+    private static final int REQUESTS = 1_000;
+    private static final int CONNECTIONS = 500;
+    private static final byte[] USER = "{\"id\":1,\"name\":\"User\",\"email\":\"user@yandex.ru\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private static HttpServer server;
+    private static ExecutorService serverExecutor;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        serverExecutor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), REQUESTS);
+        server.setExecutor(serverExecutor);
+        server.createContext("/users", exchange -> {
+            try {
+                Thread.sleep(SERVER_LATENCY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, USER.length);
+            exchange.getResponseBody().write(USER);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void platformThreads() throws Exception {
+        run(false);
+    }
+
+    @Test
+    void virtualThreads() throws Exception {
+        assumeTrue(Runtime.version().feature() >= 21, "virtual threads need Java 21");
+        run(true);
+    }
+
+    private void run(boolean virtual) throws Exception {
+        try (ConfigurableApplicationContext gateway = new SpringApplicationBuilder(ShareItGateway.class).run(
+                "--server.port=0",
+                "--server.tomcat.accept-count=" + REQUESTS,
+                "--shareit-server.url=http://localhost:" + server.getAddress().getPort(),
+                "--shareit-server.http.max-total=" + CONNECTIONS,
+                "--shareit-server.http.max-per-route=" + CONNECTIONS,
+                "--shareit-server.http.lease-timeout=60s",
+                "--shareit.threads.virtual.enabled=" + virtual,
+                "--shareit.threads.virtual.pinned-recording=target/pinned-threads.jfr",
+                "--logging.level.root=WARN")) {
+            URI uri = URI.create("http://localhost:" + gateway.getEnvironment().getProperty("local.server.port") +
+                    "/users/1");
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+            burst(client, uri); // warm-up
+            long started = System.nanoTime();
+            long[] latencies = burst(client, uri);
+            long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+
+            Arrays.sort(latencies);
+            log.warn("{} threads: {} requests in {} ms, {} req/s, p50 {} ms, p99 {} ms",
+                    virtual ? "virtual" : "platform", REQUESTS, elapsedMs, REQUESTS * 1000L / Math.max(elapsedMs, 1),
+                    latencies[REQUESTS / 2], latencies[REQUESTS * 99 / 100]);
+        }
+    }
+
+    private static long[] burst(HttpClient client, URI uri) {
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        CompletableFuture<?>[] responses = new CompletableFuture<?>[REQUESTS];
+        long[] latencies = new long[REQUESTS];
+
+        IntStream.range(0, REQUESTS).forEach(i -> {
+            long sent = System.nanoTime();
+            responses[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .thenAccept(response -> {
+                        latencies[i] = (System.nanoTime() - sent) / 1_000_000;
+                        assertThat(response.statusCode()).isEqualTo(200);
+                    });
+        });
+        CompletableFuture.allOf(responses).join();
+        return latencies;
+    }
+}
@@ -0,0 +1,253 @@
+package ru.practicum.shareit.client;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Runs the gateway's controllers against a stub server that answers with fixed bodies and records every call it
+ * gets. The subclasses run the same checks in the blocking and the reactive client modes.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+abstract class BaseClientTest {
+
+    private static final String USER = "{\"id\":1,\"name\":\"User\",\"email\":\"user@yandex.ru\"}";
+    private static final String USER_ID = "X-Sharer-User-Id";
+
+    private static final BlockingQueue<String> serverCalls = new LinkedBlockingQueue<>();
+    private static volatile CountDownLatch searchReleased;
+    private static HttpServer server;
+    private static ExecutorService serverExecutor;
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        serverExecutor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(serverExecutor);
+        server.createContext("/", BaseClientTest::handle);
+        server.start();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @DynamicPropertySource
+    static void serverUrl(DynamicPropertyRegistry registry) {
+        registry.add("shareit-server.url", () -> "http://localhost:" + server.getAddress().getPort());
+    }
+
+    @BeforeEach
+    void setUp() {
+        serverCalls.clear();
+        searchReleased = new CountDownLatch(0);
+    }
+
+    @Test
+    void getUserById_whenServerAnswers_thenBodyAndContentTypeArePassedThrough() throws Exception {
+        performAsync(get("/users/1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().json(USER));
+
+        assertThat(serverCalls.poll()).isEqualTo("GET /users/1 -");
+    }
+
+    @Test
+    void getUserById_whenServerAnswers404_thenStatusAndErrorArePassedThrough() throws Exception {
+        performAsync(get("/users/404"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("User 404 not found"));
+    }
+
+    @Test
+    void getUserById_whenServerAnswers500_thenStatusAndErrorArePassedThrough() throws Exception {
+        performAsync(get("/users/500"))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.error").value("Server failed"));
+    }
+
+    @Test
+    void add_whenUserIsValid_thenBodyIsSentAndCreatedIsReturned() throws Exception {
+        performAsync(post("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(USER))
+                .andExpect(status().isCreated())
+                .andExpect(content().json(USER));
+
+        String call = serverCalls.poll(1, TimeUnit.SECONDS);
+        assertThat(call).startsWith("POST /users - {");
+        assertThat(call).contains("\"email\":\"user@yandex.ru\"");
+    }
+
+    @Test
+    void add_whenEmailIsInvalid_thenBadRequestWithoutCallingServer() throws Exception {
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"User\",\"email\":\"not-an-email\"}"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").exists());
+
+        assertThat(serverCalls).isEmpty();
+    }
+
+    @Test
+    void updateUser_whenCalled_thenUserIdHeaderIsSent() throws Exception {
+        performAsync(patch("/users/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Renamed\"}"))
+                .andExpect(status().isOk());
+
+        assertThat(serverCalls.poll()).startsWith("PATCH /users/1 1 {");
+    }
+
+    @Test
+    void deleteUser_whenServerAnswersWithoutBody_thenEmptyResponseIsReturned() throws Exception {
+        performAsync(delete("/users/1"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(""));
+
+        assertThat(serverCalls.poll()).isEqualTo("DELETE /users/1 -");
+    }
+
+    @Test
+    void searchItems_whenUsersSearchTheSameAtOnce_thenServerGetsOneSearch() throws Exception {
+        searchReleased = new CountDownLatch(1);
+        double coalescedBefore = coalesced();
+        ExecutorService clients = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<ResultActions>> searches = new ArrayList<>();
+            for (long userId : new long[]{1, 2}) {
+                searches.add(clients.submit(() -> performAsync(get("/items/search")
+                        .param("text", "drill")
+                        .header(USER_ID, userId))));
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (coalesced() == coalescedBefore && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(coalesced()).as("second search joined the first").isEqualTo(coalescedBefore + 1);
+            searchReleased.countDown();
+
+            for (Future<ResultActions> search : searches) {
+                search.get(10, TimeUnit.SECONDS)
+                        .andExpect(status().isOk())
+                        .andExpect(content().json("[]"));
+            }
+        } finally {
+            searchReleased.countDown();
+            clients.shutdownNow();
+        }
+
+        assertThat(serverCalls).filteredOn(call -> call.startsWith("GET /items/search")).hasSize(1);
+        assertThat(serverCalls).contains("GET /users/1 -", "GET /users/2 -");
+    }
+
+    @Test
+    void searchItems_whenUserIsUnknown_thenUserErrorIsReturnedWithoutSearching() throws Exception {
+        performAsync(get("/items/search")
+                .param("text", "drill")
+                .header(USER_ID, 404))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("User 404 not found"));
+
+        assertThat(serverCalls).containsExactly("GET /users/404 -");
+    }
+
+    private double coalesced() {
+        return meterRegistry.get("gateway.single.flight.requests").tag("result", "coalesced").counter().count();
+    }
+
+    private ResultActions performAsync(RequestBuilder requestBuilder) throws Exception {
+        MvcResult result = mockMvc.perform(requestBuilder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+
+    private static void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        String userId = exchange.getRequestHeaders().getFirst(USER_ID);
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        serverCalls.add((method + " " + path + " " + (userId != null ? userId : "-") + " " + body).trim());
+
+        if (path.equals("/items/search")) {
+            try {
+                searchReleased.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, "[]");
+        } else if (path.equals("/users/404")) {
+            respond(exchange, 404, "{\"error\":\"User 404 not found\"}");
+        } else if (path.equals("/users/500")) {
+            respond(exchange, 500, "{\"error\":\"Server failed\"}");
+        } else if (method.equals("POST")) {
+            respond(exchange, 201, body);
+        } else if (method.equals("DELETE")) {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        } else {
+            respond(exchange, 200, USER);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
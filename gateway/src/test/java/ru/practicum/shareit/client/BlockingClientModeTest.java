@@ -0,0 +1,19 @@
+package ru.practicum.shareit.client;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BlockingClientModeTest extends BaseClientTest {
+
+    @Autowired
+    Optional<ReactiveServerConnector> reactiveConnector;
+
+    @Test
+    void context_whenReactiveProfileIsOff_thenRequestsGoThroughConnectionPool() {
+        assertThat(reactiveConnector).isEmpty();
+    }
+}
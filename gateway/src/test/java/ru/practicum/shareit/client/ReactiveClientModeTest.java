@@ -0,0 +1,21 @@
+package ru.practicum.shareit.client;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ActiveProfiles({"test", "reactive"})
+class ReactiveClientModeTest extends BaseClientTest {
+
+    @Autowired
+    Optional<ReactiveServerConnector> reactiveConnector;
+
+    @Test
+    void context_whenReactiveProfileIsOn_thenRequestsGoThroughWebClient() {
+        assertThat(reactiveConnector).isPresent();
+    }
+}
@@ -0,0 +1,191 @@
+package ru.practicum.shareit.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+public class SingleFlightTest {
+
+    private static final int THREADS = 32;
+    private static final String KEY = "GET /users/1";
+    private static final ResponseEntity<Object> USER = ResponseEntity.ok("user");
+
+    private SimpleMeterRegistry meterRegistry;
+    private SingleFlight singleFlight;
+    private Sinks.One<ResponseEntity<Object>> server;
+    private AtomicInteger serverCalls;
+    private Supplier<Mono<ResponseEntity<Object>>> call;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight(10, meterRegistry);
+        server = Sinks.one();
+        serverCalls = new AtomicInteger();
+        call = () -> {
+            serverCalls.incrementAndGet();
+            return server.asMono();
+        };
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void execute_whenManyRequestsShareAKey_thenOneCallServesThemAll() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<CompletableFuture<ResponseEntity<Object>>>> subscribed = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            subscribed.add(executor.submit(() -> {
+                start.await();
+                return singleFlight.execute(KEY, call).toFuture();
+            }));
+        }
+        start.countDown();
+        List<CompletableFuture<ResponseEntity<Object>>> responses = new ArrayList<>();
+        for (Future<CompletableFuture<ResponseEntity<Object>>> future : subscribed) {
+            responses.add(future.get(10, TimeUnit.SECONDS));
+        }
+
+        assertThat(inFlight()).isEqualTo(1);
+        server.tryEmitValue(USER).orThrow();
+
+        for (CompletableFuture<ResponseEntity<Object>> response : responses) {
+            assertThat(response.get(10, TimeUnit.SECONDS)).isSameAs(USER);
+        }
+        assertThat(serverCalls).hasValue(1);
+        assertThat(count("call")).isEqualTo(1);
+        assertThat(count("coalesced")).isEqualTo(THREADS - 1);
+        assertThat(count("bypassed")).isZero();
+        assertThat(inFlight()).isZero();
+    }
+
+    @Test
+    void execute_whenKeysDiffer_thenEachKeyHasItsOwnCall() throws Exception {
+        Sinks.One<ResponseEntity<Object>> otherServer = Sinks.one();
+        ResponseEntity<Object> otherUser = ResponseEntity.ok("other user");
+        Supplier<Mono<ResponseEntity<Object>>> otherCall = () -> {
+            serverCalls.incrementAndGet();
+            return otherServer.asMono();
+        };
+
+        CompletableFuture<ResponseEntity<Object>> first = singleFlight.execute(KEY, call).toFuture();
+        CompletableFuture<ResponseEntity<Object>> second = singleFlight.execute("GET /users/2", otherCall).toFuture();
+        CompletableFuture<ResponseEntity<Object>> third = singleFlight.execute(KEY, call).toFuture();
+        assertThat(inFlight()).isEqualTo(2);
+
+        otherServer.tryEmitValue(otherUser).orThrow();
+        assertThat(second.get(10, TimeUnit.SECONDS)).isSameAs(otherUser);
+        assertThat(first).isNotDone();
+        server.tryEmitValue(USER).orThrow();
+
+        assertThat(first.get(10, TimeUnit.SECONDS)).isSameAs(USER);
+        assertThat(third.get(10, TimeUnit.SECONDS)).isSameAs(USER);
+        assertThat(serverCalls).hasValue(2);
+        assertThat(count("call")).isEqualTo(2);
+        assertThat(count("coalesced")).isEqualTo(1);
+        assertThat(inFlight()).isZero();
+    }
+
+    @Test
+    void execute_whenCallHasCompleted_thenLateRequestMakesANewCall() {
+        server.tryEmitValue(USER).orThrow();
+
+        assertThat(singleFlight.execute(KEY, call).block()).isSameAs(USER);
+        assertThat(inFlight()).isZero();
+        assertThat(singleFlight.execute(KEY, call).block()).isSameAs(USER);
+
+        assertThat(serverCalls).hasValue(2);
+        assertThat(count("call")).isEqualTo(2);
+        assertThat(count("coalesced")).isZero();
+    }
+
+    @Test
+    void execute_whenCallFails_thenEveryWaiterGetsTheErrorAndKeyIsReleased() {
+        CompletableFuture<ResponseEntity<Object>> first = singleFlight.execute(KEY, call).toFuture();
+        CompletableFuture<ResponseEntity<Object>> second = singleFlight.execute(KEY, call).toFuture();
+        IllegalStateException error = new IllegalStateException("Connection refused");
+
+        server.tryEmitError(error).orThrow();
+
+        assertThat(assertThrows(ExecutionException.class, first::get)).hasCauseReference(error);
+        assertThat(assertThrows(ExecutionException.class, second::get)).hasCauseReference(error);
+        assertThat(serverCalls).hasValue(1);
+        assertThat(inFlight()).isZero();
+
+        singleFlight.execute(KEY, () -> {
+            serverCalls.incrementAndGet();
+            return Mono.just(USER);
+        }).block();
+        assertThat(serverCalls).hasValue(2);
+    }
+
+    @Test
+    void execute_whenFirstRequestIsCancelled_thenCallGoesOnForTheOthers() throws Exception {
+        Disposable first = singleFlight.execute(KEY, call).subscribe();
+        CompletableFuture<ResponseEntity<Object>> second = singleFlight.execute(KEY, call).toFuture();
+
+        first.dispose();
+        server.tryEmitValue(USER).orThrow();
+
+        assertThat(second.get(10, TimeUnit.SECONDS)).isSameAs(USER);
+        assertThat(serverCalls).hasValue(1);
+        assertThat(inFlight()).isZero();
+    }
+
+    @Test
+    void execute_whenTableIsFull_thenOtherKeysBypassIt() {
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight(1, meterRegistry);
+        singleFlight.execute(KEY, call).subscribe();
+        AtomicInteger otherCalls = new AtomicInteger();
+        Supplier<Mono<ResponseEntity<Object>>> other = () -> {
+            otherCalls.incrementAndGet();
+            return Mono.just(USER);
+        };
+
+        singleFlight.execute("GET /users/2", other).block();
+        singleFlight.execute("GET /users/2", other).block();
+        singleFlight.execute(KEY, call).subscribe();
+
+        assertThat(otherCalls).hasValue(2);
+        assertThat(serverCalls).hasValue(1);
+        assertThat(count("call")).isEqualTo(1);
+        assertThat(count("coalesced")).isEqualTo(1);
+        assertThat(count("bypassed")).isEqualTo(2);
+        assertThat(inFlight()).isEqualTo(1);
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("gateway.single.flight.requests").tag("result", result).counter().count();
+    }
+
+    private double inFlight() {
+        return meterRegistry.get("gateway.single.flight.in.flight").gauge().value();
+    }
+}
@@ -1,7 +1,12 @@
 package ru.practicum.shareit.booking;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.function.Consumer;
 
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -12,10 +17,15 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.booking.dto.BookingCountDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingPostDto;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.common.Cursor;
+import ru.practicum.shareit.common.NdjsonWriter;
 
 @RequiredArgsConstructor
 @RestController
@@ -24,6 +34,7 @@ public class BookingController {
 
     private static final String X_SHARER_USER_ID_HEADER = "X-Sharer-User-Id";
     private final BookingService bookingService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public BookingDto add(@RequestHeader(X_SHARER_USER_ID_HEADER) long userId,
@@ -52,6 +63,21 @@ public class BookingController {
         return bookingService.findAllByBookerId(state, userId, from, size);
     }
 
+    @GetMapping(params = "cursor")
+    public ResponseEntity<List<BookingDto>> findAllByBookerIdAfter(@RequestParam(defaultValue = "ALL") String state,
+                                                                   @RequestHeader(X_SHARER_USER_ID_HEADER) long userId,
+                                                                   @RequestParam String cursor,
+                                                                   @RequestParam(defaultValue = "10") Integer size) {
+        return bookingService.findAllByBookerIdAfter(state, userId, Cursor.decode(cursor), size)
+                .toResponseEntity();
+    }
+
+    @GetMapping("/count")
+    public BookingCountDto countByBookerId(@RequestParam(defaultValue = "ALL") String state,
+                                           @RequestHeader(X_SHARER_USER_ID_HEADER) long userId) {
+        return bookingService.countByBookerId(state, userId);
+    }
+
     @GetMapping("/owner")
     public List<BookingDto> findAllByOwnerId(@RequestParam(defaultValue = "ALL") String state,
                                              @RequestHeader(X_SHARER_USER_ID_HEADER) long userId,
@@ -59,4 +85,27 @@ public class BookingController {
                                              @RequestParam(defaultValue = "10") Integer size) {
         return bookingService.findAllByOwnerId(state, userId, from, size);
     }
-}
\ No newline at end of file
+
+    @GetMapping(path = "/owner", params = "cursor")
+    public ResponseEntity<List<BookingDto>> findAllByOwnerIdAfter(@RequestParam(defaultValue = "ALL") String state,
+                                                                  @RequestHeader(X_SHARER_USER_ID_HEADER) long userId,
+                                                                  @RequestParam String cursor,
+                                                                  @RequestParam(defaultValue = "10") Integer size) {
+        return bookingService.findAllByOwnerIdAfter(state, userId, Cursor.decode(cursor), size)
+                .toResponseEntity();
+    }
+
+    @GetMapping("/owner/count")
+    public BookingCountDto countByOwnerId(@RequestParam(defaultValue = "ALL") String state,
+                                          @RequestHeader(X_SHARER_USER_ID_HEADER) long userId) {
+        return bookingService.countByOwnerId(state, userId);
+    }
+
+    @GetMapping("/owner/export")
+    public void exportByOwnerId(@RequestParam(defaultValue = "ALL") String state,
+                                @RequestHeader(X_SHARER_USER_ID_HEADER) long userId,
+                                HttpServletResponse response) throws IOException {
+        NdjsonWriter.write(objectMapper, response,
+                (Consumer<BookingDto> sink) -> bookingService.exportByOwnerId(state, userId, sink));
+    }
+}
@@ -5,6 +5,7 @@ import org.springframework.stereotype.Component;
 import lombok.RequiredArgsConstructor;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoForItem;
+import ru.practicum.shareit.booking.dto.BookingForItemView;
 import ru.practicum.shareit.booking.dto.BookingPostDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.mapper.ItemMapper;
@@ -45,4 +46,11 @@ public class BookingMapper {
                 .bookerId(booking.getBooker().getId())
                 .build();
     }
-}
\ No newline at end of file
+
+    public BookingDtoForItem toBookingDtoForItem(BookingForItemView bookingView) {
+        return BookingDtoForItem.builder()
+                .id(bookingView.getId())
+                .bookerId(bookingView.getBookerId())
+                .build();
+    }
+}
@@ -0,0 +1,29 @@
+package ru.practicum.shareit.booking;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.stratagy.BookingSortField;
+import ru.practicum.shareit.booking.stratagy.BookingStateFetchStrategy;
+
+/**
+ * Bookings of one user in one role and state, with every state boundary evaluated at the same instant.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class BookingQuery {
+
+    private final Specification<Booking> specification;
+    private final BookingSortField sortField;
+
+    public static BookingQuery of(BookingRole role, long userId, BookingStateFetchStrategy strategy,
+                                  LocalDateTime now) {
+        return new BookingQuery(role.userIs(userId).and(strategy.getStateSpecification(now)),
+                strategy.getStrategySortField());
+    }
+}
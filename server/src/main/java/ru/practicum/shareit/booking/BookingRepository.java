@@ -1,51 +1,82 @@
 package ru.practicum.shareit.booking;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import ru.practicum.shareit.booking.conflict.BookedInterval;
+import ru.practicum.shareit.booking.dto.BookingForItemView;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.Status;
 
-public interface BookingRepository extends JpaRepository<Booking, Long> {
-
-    Page<Booking> findByBookerId(long userId, Pageable pageable);
-
-    Page<Booking> findAllByBookerIdAndEndDateBefore(long userId, LocalDateTime currentDateTime,
-                                                    Pageable pageable);
-
-    Page<Booking> findByBookerIdAndStartDateAfter(long userId, LocalDateTime currentDateTime,
-                                                  Pageable pageable);
-
-    Page<Booking> findAllByBookerIdAndStatusIs(long userId, Status status,
-                                               Pageable pageable);
-
-    Page<Booking> findByBookerIdAndStartDateLessThanEqualAndEndDateGreaterThan(long userId,
-                                                                               LocalDateTime currentDateTimeOne,
-                                                                               LocalDateTime currentDateTimeTwo,
-                                                                               Pageable pageable);
-
-    Page<Booking> findByItemOwnerId(long userId, Pageable pageable);
-
-    Page<Booking> findByItemOwnerIdAndEndDateBefore(long userId, LocalDateTime currentDateTime,
-                                                    Pageable pageable);
-
-    Page<Booking> findByItemOwnerIdAndStartDateAfter(long userId, LocalDateTime currentDateTime,
-                                                     Pageable pageable);
-
-    Page<Booking> findByItemOwnerIdAndStatusIs(long userId, Status status, Pageable pageable);
-
-    Page<Booking> findByItemOwnerIdAndStartDateLessThanEqualAndEndDateGreaterThan(long userId,
-                                                                                  LocalDateTime currentDateTimeOne,
-                                                                                  LocalDateTime currentDateTimeTwo,
-                                                                                  Pageable pageable);
-
-    List<Booking> findAllByItemIdAndStartDateIsAfterOrderByStartDateDesc(long itemId, LocalDateTime currentDateTime);
-
-    List<Booking> findAllByItemIdAndEndDateIsBeforeOrderByEndDateDesc(long itemId, LocalDateTime currentDateTime);
+public interface BookingRepository extends JpaRepository<Booking, Long>, JpaSpecificationExecutor<Booking>,
+        BookingSeekRepository {
+
+    @Query(value = "select b.item_id as itemId, b.id as id, b.booker_id as bookerId " +
+            "from (select bk.item_id, bk.id, bk.booker_id, " +
+            "             row_number() over (partition by bk.item_id " +
+            "                                order by bk.start_date desc, bk.id desc) as rn " +
+            "      from bookings bk " +
+            "      where bk.item_id in (:itemIds) " +
+            "        and bk.status = 'APPROVED' " +
+            "        and bk.start_date > :now) b " +
+            "where b.rn = 1", nativeQuery = true)
+    List<BookingForItemView> findNextApprovedByItemIds(@Param("itemIds") Collection<Long> itemIds,
+                                                       @Param("now") LocalDateTime now);
+
+    @Query(value = "select b.item_id as itemId, b.id as id, b.booker_id as bookerId " +
+            "from (select bk.item_id, bk.id, bk.booker_id, " +
+            "             row_number() over (partition by bk.item_id " +
+            "                                order by bk.end_date desc, bk.id desc) as rn " +
+            "      from bookings bk " +
+            "      where bk.item_id in (:itemIds) " +
+            "        and bk.status = 'APPROVED' " +
+            "        and bk.end_date < :now) b " +
+            "where b.rn = 1", nativeQuery = true)
+    List<BookingForItemView> findLastApprovedByItemIds(@Param("itemIds") Collection<Long> itemIds,
+                                                       @Param("now") LocalDateTime now);
+
+    @Query("select min(case when b.startDate >= :now then b.startDate else b.endDate end) " +
+            "from Booking b " +
+            "where b.item.id = :itemId " +
+            "  and b.status = ru.practicum.shareit.booking.model.Status.APPROVED " +
+            "  and b.endDate >= :now")
+    Optional<LocalDateTime> findNextApprovedBoundaryByItemId(@Param("itemId") long itemId,
+                                                             @Param("now") LocalDateTime now);
+
+    @Query("select b.item.id from Booking b where b.id = :bookingId")
+    Optional<Long> findItemIdById(@Param("bookingId") long bookingId);
+
+    @Query("select distinct b.item.id from Booking b " +
+            "where b.item.id in :itemIds " +
+            "  and b.status = ru.practicum.shareit.booking.model.Status.APPROVED " +
+            "  and b.startDate < :end " +
+            "  and b.endDate > :start")
+    Set<Long> findApprovedItemIdsOverlapping(@Param("itemIds") Collection<Long> itemIds,
+                                             @Param("start") LocalDateTime start,
+                                             @Param("end") LocalDateTime end);
+
+    @Query("select new ru.practicum.shareit.booking.conflict.BookedInterval(b.id, b.startDate, b.endDate) " +
+            "from Booking b " +
+            "where b.item.id = :itemId " +
+            "  and b.status = ru.practicum.shareit.booking.model.Status.APPROVED " +
+            "  and b.endDate > :now")
+    List<BookedInterval> findApprovedIntervalsByItemId(@Param("itemId") long itemId,
+                                                       @Param("now") LocalDateTime now);
+
+    @Query("select b.id from Booking b " +
+            "where b.status = ru.practicum.shareit.booking.model.Status.WAITING " +
+            "  and b.startDate < :now " +
+            "order by b.startDate, b.id")
+    List<Long> findStaleWaitingIds(@Param("now") LocalDateTime now, Pageable pageable);
 
     List<Booking> findAllBookingsByItemIdAndBookerIdAndEndDateBeforeAndStatusOrderByStartDateDesc(Long itemId, Long userId,
                                                                                                   LocalDateTime now, Status status);
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.booking;
+
+import java.util.function.LongFunction;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import lombok.AllArgsConstructor;
+import ru.practicum.shareit.booking.model.Booking;
+
+@AllArgsConstructor
+public enum BookingRole {
+    BOOKER(BookingSpecifications::bookerIdIs),
+    OWNER(BookingSpecifications::itemOwnerIdIs);
+
+    private final LongFunction<Specification<Booking>> userSpecification;
+
+    public Specification<Booking> userIs(long userId) {
+        return userSpecification.apply(userId);
+    }
+}
@@ -0,0 +1,34 @@
+package ru.practicum.shareit.booking;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.lang.Nullable;
+
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.common.Cursor;
+
+public interface BookingSeekRepository {
+
+    /**
+     * Returns the page of bookings ordered by (sort field desc, id desc) at the offset of the pageable,
+     * without a count query. Item and booker are fetched in the same statement.
+     */
+    Slice<Booking> findPage(BookingQuery query, Pageable pageable);
+
+    /**
+     * Returns up to {@code limit} bookings ordered by (sort field desc, id desc) that come after the cursor,
+     * without an offset scan and without a count query. Item and booker are fetched in the same statement.
+     */
+    List<Booking> findAllAfter(BookingQuery query, @Nullable Cursor cursor, int limit);
+
+    long count(BookingQuery query);
+
+    /**
+     * Streams every booking of the query in (sort field desc, id desc) order through a forward-only cursor that
+     * fetches {@code fetchSize} rows at a time. Must be consumed and closed inside a transaction.
+     */
+    Stream<Booking> streamAll(BookingQuery query, int fetchSize);
+}
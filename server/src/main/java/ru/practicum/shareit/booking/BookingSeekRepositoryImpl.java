@@ -0,0 +1,106 @@
+package ru.practicum.shareit.booking;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.lang.Nullable;
+
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.common.Cursor;
+
+public class BookingSeekRepositoryImpl implements BookingSeekRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<Booking> findPage(BookingQuery query, Pageable pageable) {
+        List<Booking> bookings = createQuery(query, null)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+
+        boolean hasNext = bookings.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? bookings.subList(0, pageable.getPageSize()) : bookings, pageable, hasNext);
+    }
+
+    @Override
+    public List<Booking> findAllAfter(BookingQuery query, @Nullable Cursor cursor, int limit) {
+        return createQuery(query, cursor)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public long count(BookingQuery query) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> criteria = cb.createQuery(Long.class);
+        Root<Booking> root = criteria.from(Booking.class);
+
+        Predicate predicate = query.getSpecification().toPredicate(root, criteria, cb);
+        if (predicate != null) {
+            criteria.where(predicate);
+        }
+        criteria.select(cb.count(root));
+
+        return entityManager.createQuery(criteria).getSingleResult();
+    }
+
+    @Override
+    public Stream<Booking> streamAll(BookingQuery query, int fetchSize) {
+        // the fetch joins load each booking completely, so the persistence context can be cleared after every
+        // chunk and memory stays flat however many bookings are streamed
+        AtomicInteger streamed = new AtomicInteger();
+        return createQuery(query, null)
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream()
+                .peek(booking -> {
+                    if (streamed.incrementAndGet() % fetchSize == 0) {
+                        entityManager.clear();
+                    }
+                });
+    }
+
+    private TypedQuery<Booking> createQuery(BookingQuery query, @Nullable Cursor cursor) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Booking> criteria = cb.createQuery(Booking.class);
+        Root<Booking> root = criteria.from(Booking.class);
+        root.fetch("item");
+        root.fetch("booker");
+
+        Path<LocalDateTime> sortKey = root.get(query.getSortField().getAttribute());
+        Path<Long> id = root.get("id");
+
+        Predicate predicate = query.getSpecification().toPredicate(root, criteria, cb);
+        if (cursor != null) {
+            Predicate seek = cb.or(
+                    cb.lessThan(sortKey, cursor.getSortKey()),
+                    cb.and(cb.equal(sortKey, cursor.getSortKey()), cb.lessThan(id, cursor.getId())));
+            predicate = predicate == null ? seek : cb.and(predicate, seek);
+        }
+        if (predicate != null) {
+            criteria.where(predicate);
+        }
+
+        criteria.select(root)
+                .orderBy(cb.desc(sortKey), cb.desc(id));
+
+        return entityManager.createQuery(criteria);
+    }
+}
@@ -0,0 +1,40 @@
+package ru.practicum.shareit.booking;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+
+public final class BookingSpecifications {
+
+    private BookingSpecifications() {
+    }
+
+    public static Specification<Booking> bookerIdIs(long userId) {
+        return (root, query, cb) -> cb.equal(root.get("booker").get("id"), userId);
+    }
+
+    public static Specification<Booking> itemOwnerIdIs(long userId) {
+        return (root, query, cb) -> cb.equal(root.get("item").get("ownerId"), userId);
+    }
+
+    public static Specification<Booking> statusIs(Status status) {
+        return (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    public static Specification<Booking> startDateAfter(LocalDateTime dateTime) {
+        return (root, query, cb) -> cb.greaterThan(root.get("startDate"), dateTime);
+    }
+
+    public static Specification<Booking> endDateBefore(LocalDateTime dateTime) {
+        return (root, query, cb) -> cb.lessThan(root.get("endDate"), dateTime);
+    }
+
+    public static Specification<Booking> currentAt(LocalDateTime dateTime) {
+        return (root, query, cb) -> cb.and(
+                cb.lessThanOrEqualTo(root.get("startDate"), dateTime),
+                cb.greaterThan(root.get("endDate"), dateTime));
+    }
+}
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking.conflict;
+
+import java.time.LocalDateTime;
+
+import lombok.Value;
+
+/**
+ * Half-open period {@code [start, end)} an item is either free or busy for.
+ */
+@Value
+public class AvailabilityRange {
+
+    LocalDateTime start;
+    LocalDateTime end;
+    boolean available;
+}
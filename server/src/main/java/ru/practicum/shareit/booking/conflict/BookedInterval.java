@@ -0,0 +1,20 @@
+package ru.practicum.shareit.booking.conflict;
+
+import java.time.LocalDateTime;
+
+import lombok.Value;
+
+/**
+ * Half-open period {@code [start, end)} an item is booked for.
+ */
+@Value
+public class BookedInterval {
+
+    long bookingId;
+    LocalDateTime start;
+    LocalDateTime end;
+
+    public boolean overlaps(LocalDateTime otherStart, LocalDateTime otherEnd) {
+        return start.isBefore(otherEnd) && otherStart.isBefore(end);
+    }
+}
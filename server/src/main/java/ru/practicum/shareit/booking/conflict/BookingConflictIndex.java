@@ -0,0 +1,134 @@
+package ru.practicum.shareit.booking.conflict;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static java.lang.String.format;
+import static java.time.LocalDateTime.now;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exception.ConflictException;
+
+/**
+ * Approved booking intervals of recently booked items, one interval tree and hour bitmap per item loaded
+ * on first use. Checks, reservations and calendar reads of an item are serialized on its schedule;
+ * a reservation made by a transaction that rolls back and any release drop the schedule after completion,
+ * so the next check reloads it from the database. A schedule is also rebuilt once {@code expire-after-write}
+ * has passed however often it is read, so its bitmap starts near the present and ended intervals are dropped.
+ */
+@Component
+public class BookingConflictIndex {
+
+    private static final String CACHE_NAME = "bookingIntervals";
+
+    private final BookingRepository bookingRepository;
+    private final Cache<Long, ItemSchedule> schedules;
+
+    @Autowired
+    public BookingConflictIndex(BookingRepository bookingRepository,
+                                @Value("${shareit.booking.conflict-index.maximum-size:10000}") long maximumSize,
+                                @Value("${shareit.booking.conflict-index.expire-after-access:1h}")
+                                Duration expireAfterAccess,
+                                @Value("${shareit.booking.conflict-index.expire-after-write:1d}")
+                                Duration expireAfterWrite,
+                                MeterRegistry meterRegistry) {
+        this.bookingRepository = bookingRepository;
+        schedules = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(expireAfterAccess)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, schedules, CACHE_NAME);
+    }
+
+    public void checkAvailable(long itemId, LocalDateTime start, LocalDateTime end) {
+        ItemSchedule schedule = getSchedule(itemId);
+
+        synchronized (schedule) {
+            throwIfOverlaps(schedule, itemId, start, end);
+        }
+    }
+
+    public List<AvailabilityRange> getAvailability(long itemId, LocalDateTime from, LocalDateTime to) {
+        ItemSchedule schedule = getSchedule(itemId);
+
+        synchronized (schedule) {
+            return schedule.ranges(from, to);
+        }
+    }
+
+    public void reserve(Booking booking) {
+        long itemId = booking.getItem().getId();
+        ItemSchedule schedule = getSchedule(itemId);
+
+        synchronized (schedule) {
+            throwIfOverlaps(schedule, itemId, booking.getStartDate(), booking.getEndDate());
+            schedule.add(toInterval(booking));
+        }
+        invalidateAfterCompletion(itemId, false);
+    }
+
+    public void release(Booking booking) {
+        long itemId = booking.getItem().getId();
+        ItemSchedule schedule = schedules.getIfPresent(itemId);
+
+        if (schedule != null) {
+            synchronized (schedule) {
+                schedule.remove(toInterval(booking));
+            }
+        }
+        // a schedule loaded by another transaction before this one commits still holds the interval
+        invalidateAfterCompletion(itemId, true);
+    }
+
+    public void invalidateAll() {
+        schedules.invalidateAll();
+    }
+
+    private ItemSchedule getSchedule(long itemId) {
+        return schedules.get(itemId, id -> {
+            LocalDateTime now = now();
+            ItemSchedule schedule = new ItemSchedule(now);
+            bookingRepository.findApprovedIntervalsByItemId(id, now)
+                    .forEach(schedule::add);
+            return schedule;
+        });
+    }
+
+    private void invalidateAfterCompletion(long itemId, boolean evenIfCommitted) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (evenIfCommitted || status != STATUS_COMMITTED) {
+                        schedules.invalidate(itemId);
+                    }
+                }
+            });
+        }
+    }
+
+    private static void throwIfOverlaps(ItemSchedule schedule, long itemId, LocalDateTime start, LocalDateTime end) {
+        schedule.findOverlap(start, end).ifPresent(conflict -> {
+            throw new ConflictException(format("Item with id: '%d' is already booked from %s to %s",
+                    itemId, conflict.getStart(), conflict.getEnd()));
+        });
+    }
+
+    private static BookedInterval toInterval(Booking booking) {
+        return new BookedInterval(booking.getId(), booking.getStartDate(), booking.getEndDate());
+    }
+}
@@ -0,0 +1,115 @@
+package ru.practicum.shareit.booking.conflict;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Busy hours of one item, one bit per hour counted from the hour the bitmap was created in.
+ * An hour is busy when any booked interval touches it; hours before the origin are never busy.
+ * Only hours up to {@code horizon} after the origin are kept, so a booking far in the future costs no memory;
+ * later hours are answered by {@code busyBeyondHorizon}, called with the start of the hour.
+ */
+public class HourBitmap {
+
+    private static final long SECONDS_PER_HOUR = 3600;
+
+    private final long originHour;
+    private final long endHour;
+    private final Predicate<LocalDateTime> busyBeyondHorizon;
+    private final BitSet hours = new BitSet();
+
+    public HourBitmap(LocalDateTime origin, Duration horizon, Predicate<LocalDateTime> busyBeyondHorizon) {
+        originHour = hourOf(origin);
+        endHour = originHour + horizon.toHours();
+        this.busyBeyondHorizon = busyBeyondHorizon;
+    }
+
+    public void mark(LocalDateTime start, LocalDateTime end) {
+        set(start, end, true);
+    }
+
+    public void clear(LocalDateTime start, LocalDateTime end) {
+        set(start, end, false);
+    }
+
+    public boolean isBusy(LocalDateTime time) {
+        return isBusy(hourOf(time));
+    }
+
+    /**
+     * Splits {@code [from, to)} into alternating free and busy ranges with hour-aligned inner bounds.
+     */
+    public List<AvailabilityRange> ranges(LocalDateTime from, LocalDateTime to) {
+        List<AvailabilityRange> ranges = new ArrayList<>();
+        long lastHour = hourOf(to.minusNanos(1));
+        long hour = hourOf(from);
+        LocalDateTime rangeStart = from;
+
+        while (rangeStart.isBefore(to)) {
+            boolean busy = isBusy(hour);
+            long next = nextChange(hour, busy, lastHour + 1);
+            LocalDateTime rangeEnd = next > lastHour ? to : startOf(next);
+
+            ranges.add(new AvailabilityRange(rangeStart, rangeEnd, !busy));
+            rangeStart = rangeEnd;
+            hour = next;
+        }
+        return ranges;
+    }
+
+    private void set(LocalDateTime start, LocalDateTime end, boolean busy) {
+        if (!start.isBefore(end)) {
+            return;
+        }
+
+        long first = Math.max(hourOf(start), originHour);
+        long last = Math.min(hourOf(end.minusNanos(1)), endHour - 1);
+        if (last < first) {
+            return;
+        }
+        hours.set(index(first), index(last) + 1, busy);
+    }
+
+    private boolean isBusy(long hour) {
+        if (hour < originHour) {
+            return false;
+        }
+        return hour < endHour ? hours.get(index(hour)) : busyBeyondHorizon.test(startOf(hour));
+    }
+
+    /**
+     * Returns the first hour after {@code hour} that is not {@code busy}, or {@code limit}.
+     */
+    private long nextChange(long hour, boolean busy, long limit) {
+        if (hour < endHour) {
+            int from = index(Math.max(hour, originHour));
+            int next = busy ? hours.nextClearBit(from) : hours.nextSetBit(from);
+            long nextHour = next < 0 ? endHour : Math.min(originHour + next, endHour);
+            if (nextHour < endHour || nextHour >= limit) {
+                return Math.min(nextHour, limit);
+            }
+            hour = endHour;
+        }
+        while (hour < limit && isBusy(hour) == busy) {
+            hour++;
+        }
+        return hour;
+    }
+
+    private int index(long hour) {
+        return Math.toIntExact(hour - originHour);
+    }
+
+    private static long hourOf(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), SECONDS_PER_HOUR);
+    }
+
+    private static LocalDateTime startOf(long hour) {
+        return LocalDateTime.ofEpochSecond(hour * SECONDS_PER_HOUR, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,154 @@
+package ru.practicum.shareit.booking.conflict;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Optional;
+
+/**
+ * AVL tree of booked intervals ordered by (start, booking id). Every node also keeps the latest end of its subtree,
+ * so an overlap lookup walks a single root-to-leaf path. Not thread-safe.
+ */
+public class IntervalTree {
+
+    private static final Comparator<BookedInterval> ORDER = Comparator.comparing(BookedInterval::getStart)
+            .thenComparingLong(BookedInterval::getBookingId);
+
+    private Node root;
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public void insert(BookedInterval interval) {
+        root = insert(root, interval);
+    }
+
+    public boolean remove(BookedInterval interval) {
+        int before = size;
+        root = remove(root, interval);
+        return size < before;
+    }
+
+    /**
+     * Returns any interval overlapping {@code [start, end)}.
+     */
+    public Optional<BookedInterval> findOverlap(LocalDateTime start, LocalDateTime end) {
+        Node node = root;
+        while (node != null) {
+            if (node.interval.overlaps(start, end)) {
+                return Optional.of(node.interval);
+            }
+            // an interval on the left ending after start either overlaps or starts after end, as does all the right
+            node = node.left != null && node.left.maxEnd.isAfter(start) ? node.left : node.right;
+        }
+        return Optional.empty();
+    }
+
+    private Node insert(Node node, BookedInterval interval) {
+        if (node == null) {
+            size++;
+            return new Node(interval);
+        }
+
+        int compared = ORDER.compare(interval, node.interval);
+        if (compared < 0) {
+            node.left = insert(node.left, interval);
+        } else if (compared > 0) {
+            node.right = insert(node.right, interval);
+        } else {
+            node.interval = interval;
+        }
+        return balance(node);
+    }
+
+    private Node remove(Node node, BookedInterval interval) {
+        if (node == null) {
+            return null;
+        }
+
+        int compared = ORDER.compare(interval, node.interval);
+        if (compared < 0) {
+            node.left = remove(node.left, interval);
+        } else if (compared > 0) {
+            node.right = remove(node.right, interval);
+        } else if (node.left == null || node.right == null) {
+            size--;
+            return node.left != null ? node.left : node.right;
+        } else {
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.interval = successor.interval;
+            node.right = remove(node.right, successor.interval);
+        }
+        return balance(node);
+    }
+
+    private Node balance(Node node) {
+        node.update();
+        int balance = height(node.left) - height(node.right);
+
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        node.update();
+        left.update();
+        return left;
+    }
+
+    private Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        node.update();
+        right.update();
+        return right;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static final class Node {
+
+        private BookedInterval interval;
+        private LocalDateTime maxEnd;
+        private int height;
+        private Node left;
+        private Node right;
+
+        private Node(BookedInterval interval) {
+            this.interval = interval;
+            update();
+        }
+
+        private void update() {
+            height = 1 + Math.max(height(left), height(right));
+            maxEnd = interval.getEnd();
+            if (left != null && left.maxEnd.isAfter(maxEnd)) {
+                maxEnd = left.maxEnd;
+            }
+            if (right != null && right.maxEnd.isAfter(maxEnd)) {
+                maxEnd = right.maxEnd;
+            }
+        }
+    }
+}
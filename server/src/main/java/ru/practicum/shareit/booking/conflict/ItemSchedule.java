@@ -0,0 +1,56 @@
+package ru.practicum.shareit.booking.conflict;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static java.time.temporal.ChronoUnit.HOURS;
+
+/**
+ * Approved intervals of one item together with the hours they make busy.
+ */
+class ItemSchedule {
+
+    /**
+     * As far ahead as an availability query reaches from the moment the schedule is built.
+     */
+    private static final Duration BITMAP_HORIZON = Duration.ofDays(366);
+
+    private final IntervalTree intervals = new IntervalTree();
+    private final HourBitmap busyHours;
+
+    ItemSchedule(LocalDateTime origin) {
+        busyHours = new HourBitmap(origin, BITMAP_HORIZON,
+                hour -> intervals.findOverlap(hour, hour.plusHours(1)).isPresent());
+    }
+
+    void add(BookedInterval interval) {
+        intervals.insert(interval);
+        busyHours.mark(interval.getStart(), interval.getEnd());
+    }
+
+    void remove(BookedInterval interval) {
+        if (!intervals.remove(interval)) {
+            return;
+        }
+
+        busyHours.clear(interval.getStart(), interval.getEnd());
+        // the first and the last hour may be shared with adjacent intervals
+        remarkHour(interval.getStart().truncatedTo(HOURS));
+        remarkHour(interval.getEnd().minusNanos(1).truncatedTo(HOURS));
+    }
+
+    Optional<BookedInterval> findOverlap(LocalDateTime start, LocalDateTime end) {
+        return intervals.findOverlap(start, end);
+    }
+
+    List<AvailabilityRange> ranges(LocalDateTime from, LocalDateTime to) {
+        return busyHours.ranges(from, to);
+    }
+
+    private void remarkHour(LocalDateTime hour) {
+        intervals.findOverlap(hour, hour.plusHours(1))
+                .ifPresent(neighbour -> busyHours.mark(neighbour.getStart(), neighbour.getEnd()));
+    }
+}
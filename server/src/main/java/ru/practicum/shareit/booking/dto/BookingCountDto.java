@@ -0,0 +1,14 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import ru.practicum.shareit.booking.model.State;
+
+@Data
+@Builder
+public class BookingCountDto {
+
+    private State state;
+
+    private long count;
+}
@@ -0,0 +1,10 @@
+package ru.practicum.shareit.booking.dto;
+
+public interface BookingForItemView {
+
+    Long getItemId();
+
+    Long getId();
+
+    Long getBookerId();
+}
@@ -3,6 +3,7 @@ package ru.practicum.shareit.booking.model;
 public enum Status {
     APPROVED,
     CANCELED,
+    EXPIRED,
     REJECTED,
     WAITING
 }
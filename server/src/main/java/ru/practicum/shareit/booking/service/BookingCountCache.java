@@ -0,0 +1,52 @@
+package ru.practicum.shareit.booking.service;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import ru.practicum.shareit.booking.model.State;
+
+/**
+ * Booking totals per (role, state, user). A total may lag behind writes by up to the configured expiry,
+ * which is fine for the count endpoints and keeps count(*) off the listing path.
+ */
+@Component
+public class BookingCountCache {
+
+    private static final String CACHE_NAME = "bookingCounts";
+
+    private final Cache<Key, Long> cache;
+
+    @Autowired
+    public BookingCountCache(@Value("${shareit.booking.count-cache.maximum-size:10000}") long maximumSize,
+                             @Value("${shareit.booking.count-cache.expire-after-write:30s}") Duration expireAfterWrite,
+                             MeterRegistry meterRegistry) {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public long get(boolean owner, State state, long userId, LongSupplier counter) {
+        return cache.get(new Key(owner, state, userId), key -> counter.getAsLong());
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class Key {
+        private final boolean owner;
+        private final State state;
+        private final long userId;
+    }
+}
@@ -1,9 +1,13 @@
 package ru.practicum.shareit.booking.service;
 
 import java.util.List;
+import java.util.function.Consumer;
 
+import ru.practicum.shareit.booking.dto.BookingCountDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingPostDto;
+import ru.practicum.shareit.common.Cursor;
+import ru.practicum.shareit.common.CursorPage;
 
 public interface BookingService {
 
@@ -11,6 +15,16 @@ public interface BookingService {
 
     List<BookingDto> findAllByOwnerId(String state, long userId, Integer offset, Integer size);
 
+    CursorPage<BookingDto> findAllByBookerIdAfter(String state, long userId, Cursor cursor, int size);
+
+    CursorPage<BookingDto> findAllByOwnerIdAfter(String state, long userId, Cursor cursor, int size);
+
+    BookingCountDto countByBookerId(String state, long userId);
+
+    BookingCountDto countByOwnerId(String state, long userId);
+
+    void exportByOwnerId(String state, long userId, Consumer<BookingDto> sink);
+
     BookingDto getById(long bookingId, long userId);
 
     BookingDto add(long userId, BookingPostDto bookingPostDto);
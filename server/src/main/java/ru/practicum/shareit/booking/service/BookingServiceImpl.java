@@ -1,32 +1,51 @@
 package ru.practicum.shareit.booking.service;
 
+import java.sql.SQLException;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static java.lang.String.format;
+import static java.time.LocalDateTime.now;
 import static java.util.stream.Collectors.toList;
 
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.validation.annotation.Validated;
 
 import lombok.RequiredArgsConstructor;
 import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.BookingQuery;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingRole;
+import ru.practicum.shareit.booking.conflict.BookingConflictIndex;
+import ru.practicum.shareit.booking.dto.BookingCountDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingPostDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.State;
-import ru.practicum.shareit.booking.stratagy.BookingStateFetchStrategy;
+import ru.practicum.shareit.booking.stratagy.BookingSortField;
 import ru.practicum.shareit.booking.stratagy.BookingStateFetchStrategyFactory;
+import ru.practicum.shareit.common.Cursor;
+import ru.practicum.shareit.common.CursorPage;
+import ru.practicum.shareit.common.CustomPageRequest;
 import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.cache.ItemViewCache;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import static ru.practicum.shareit.booking.BookingRole.BOOKER;
+import static ru.practicum.shareit.booking.BookingRole.OWNER;
 import static ru.practicum.shareit.booking.model.Status.APPROVED;
+import static ru.practicum.shareit.booking.model.Status.EXPIRED;
 import static ru.practicum.shareit.booking.model.Status.REJECTED;
 import static ru.practicum.shareit.booking.model.Status.WAITING;
 
@@ -36,16 +55,35 @@ import static ru.practicum.shareit.booking.model.Status.WAITING;
 @Transactional(readOnly = true)
 public class BookingServiceImpl implements BookingService {
 
+    private static final int EXPORT_FETCH_SIZE = 500;
+    /**
+     * SQLState of the {@code bookings_approved_no_overlap} exclusion constraint and of its H2 stand-in.
+     */
+    private static final String EXCLUSION_VIOLATION = "23P01";
+
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
     private final BookingRepository bookingRepository;
     private final BookingMapper bookingMapper;
+    private final ItemViewCache itemViewCache;
+    private final BookingConflictIndex conflictIndex;
 
     private final BookingStateFetchStrategyFactory strategyFactory;
+    private final BookingCountCache countCache;
+    private final ItemLockStripes itemLocks;
+    private final TransactionTemplate transactionTemplate;
 
+    /**
+     * Takes the item's stripe before the transaction begins, see {@link ItemLockStripes}.
+     */
     @Override
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public BookingDto add(long userId, BookingPostDto bookingPostDto) {
+        return itemLocks.callWithLock(bookingPostDto.getItemId(),
+                () -> transactionTemplate.execute(status -> addLocked(userId, bookingPostDto)));
+    }
+
+    private BookingDto addLocked(long userId, BookingPostDto bookingPostDto) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() ->
                         new NotFoundException(format("User with id: '%d' does not exist", userId)));
@@ -62,17 +100,32 @@ public class BookingServiceImpl implements BookingService {
             throw new NotFoundException("Item cannot be booked by the owner");
         }
 
+        conflictIndex.checkAvailable(item.getId(), bookingPostDto.getStart(), bookingPostDto.getEnd());
+
         Booking booking = bookingMapper.toBooking(bookingPostDto, item, user);
         booking.setStatus(WAITING);
 
         bookingRepository.save(booking);
+        itemViewCache.evict(item.getId());
 
         return bookingMapper.toBookingDto(booking);
     }
 
+    /**
+     * Takes the item's stripe before the transaction begins, see {@link ItemLockStripes}.
+     */
     @Override
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public BookingDto approveOrReject(long bookingId, boolean approved, long userId) {
+        long itemId = bookingRepository.findItemIdById(bookingId)
+                .orElseThrow(() ->
+                        new NotFoundException(format("Booking with id: %d does not exist", bookingId)));
+
+        return itemLocks.callWithLock(itemId,
+                () -> transactionTemplate.execute(status -> approveOrRejectLocked(bookingId, approved, userId)));
+    }
+
+    private BookingDto approveOrRejectLocked(long bookingId, boolean approved, long userId) {
         Booking booking = getBookingIfExist(bookingId);
 
         if (!booking.getItem().getOwnerId().equals(userId)) {
@@ -83,13 +136,32 @@ public class BookingServiceImpl implements BookingService {
             throw new BadRequestException("This booking is already approved");
         }
 
+        if (booking.getStatus().equals(EXPIRED)) {
+            throw new BadRequestException("This booking has expired");
+        }
+
         if (approved) {
+            conflictIndex.reserve(booking);
             booking.setStatus(APPROVED);
         } else {
+            if (booking.getStatus().equals(APPROVED)) {
+                conflictIndex.release(booking);
+            }
             booking.setStatus(REJECTED);
         }
 
-        return bookingMapper.toBookingDto(bookingRepository.save(booking));
+        itemViewCache.evict(booking.getItem().getId());
+
+        try {
+            return bookingMapper.toBookingDto(bookingRepository.saveAndFlush(booking));
+        } catch (DataIntegrityViolationException e) {
+            if (!isExclusionViolation(e)) {
+                throw e;
+            }
+            // another node has approved an overlapping booking of the item
+            throw new ConflictException(format("Item with id: '%d' is already booked for this period",
+                    booking.getItem().getId()));
+        }
     }
 
     @Override
@@ -109,8 +181,8 @@ public class BookingServiceImpl implements BookingService {
         State providedState = getStateOrThrow(state);
         checkUserExists(userId);
 
-        BookingStateFetchStrategy strategy = strategyFactory.findStrategy(providedState);
-        var bookings = strategy.findBookingsByBooker(userId, offset, size);
+        var bookings = bookingRepository.findPage(query(BOOKER, userId, providedState),
+                CustomPageRequest.of(offset, size));
 
         return bookings.stream()
                 .map(bookingMapper::toBookingDto)
@@ -123,14 +195,94 @@ public class BookingServiceImpl implements BookingService {
         State providedState = getStateOrThrow(state);
         checkUserExists(userId);
 
-        BookingStateFetchStrategy strategy = strategyFactory.findStrategy(providedState);
-        var bookings = strategy.findBookingsByOwner(userId, offset, size);
+        var bookings = bookingRepository.findPage(query(OWNER, userId, providedState),
+                CustomPageRequest.of(offset, size));
 
         return bookings.stream()
                 .map(bookingMapper::toBookingDto)
                 .collect(toList());
     }
 
+    @Override
+    public CursorPage<BookingDto> findAllByBookerIdAfter(String state, long userId, Cursor cursor, int size) {
+        State providedState = getStateOrThrow(state);
+        checkUserExists(userId);
+
+        return findAllAfter(query(BOOKER, userId, providedState), cursor, size);
+    }
+
+    @Override
+    public CursorPage<BookingDto> findAllByOwnerIdAfter(String state, long userId, Cursor cursor, int size) {
+        State providedState = getStateOrThrow(state);
+        checkUserExists(userId);
+
+        return findAllAfter(query(OWNER, userId, providedState), cursor, size);
+    }
+
+    @Override
+    public BookingCountDto countByBookerId(String state, long userId) {
+        State providedState = getStateOrThrow(state);
+        checkUserExists(userId);
+
+        return count(BOOKER, userId, providedState);
+    }
+
+    @Override
+    public BookingCountDto countByOwnerId(String state, long userId) {
+        State providedState = getStateOrThrow(state);
+        checkUserExists(userId);
+
+        return count(OWNER, userId, providedState);
+    }
+
+    @Override
+    public void exportByOwnerId(String state, long userId, Consumer<BookingDto> sink) {
+        State providedState = getStateOrThrow(state);
+        checkUserExists(userId);
+
+        try (Stream<Booking> bookings = bookingRepository.streamAll(query(OWNER, userId, providedState),
+                EXPORT_FETCH_SIZE)) {
+            bookings.map(bookingMapper::toBookingDto)
+                    .forEach(sink);
+        }
+    }
+
+    private BookingQuery query(BookingRole role, long userId, State state) {
+        return BookingQuery.of(role, userId, strategyFactory.findStrategy(state), now());
+    }
+
+    private BookingCountDto count(BookingRole role, long userId, State state) {
+        long count = countCache.get(role == OWNER, state, userId, () ->
+                bookingRepository.count(query(role, userId, state)));
+
+        return BookingCountDto.builder()
+                .state(state)
+                .count(count)
+                .build();
+    }
+
+    private CursorPage<BookingDto> findAllAfter(BookingQuery query, Cursor cursor, int size) {
+        if (cursor != null && cursor.getSortKey() == null) {
+            throw new BadRequestException(format("Invalid cursor: %s", cursor.encode()));
+        }
+
+        BookingSortField sortField = query.getSortField();
+
+        var bookings = bookingRepository.findAllAfter(query, cursor, CursorPage.fetchSize(size));
+
+        return CursorPage.of(bookings, size, sortField::cursorOf)
+                .map(bookingMapper::toBookingDto);
+    }
+
+    private static boolean isExclusionViolation(DataIntegrityViolationException e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException && EXCLUSION_VIOLATION.equals(((SQLException) cause).getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private Booking getBookingIfExist(long bookingId) {
         return bookingRepository.findById(bookingId)
                 .orElseThrow(() ->
@@ -0,0 +1,108 @@
+package ru.practicum.shareit.booking.service;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import static java.lang.String.format;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import ru.practicum.shareit.exception.ConflictException;
+
+/**
+ * Serializes booking state transitions per item: a transition takes the stripe of the item it changes before its
+ * transaction begins and holds it until the transaction completes, so the next transition of that item sees the
+ * committed state and requests waiting for a stripe do not hold a database connection.
+ * Items on different stripes proceed in parallel, and reads never take a stripe.
+ */
+@Component
+public class ItemLockStripes {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final long timeoutNanos;
+
+    private final Timer waitTimer;
+    private final Counter timeouts;
+
+    @Autowired
+    public ItemLockStripes(@Value("${shareit.booking.item-locks.stripes:64}") int stripes,
+                           @Value("${shareit.booking.item-locks.timeout:5s}") Duration timeout,
+                           MeterRegistry meterRegistry) {
+        int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new ReentrantLock[size];
+        this.mask = size - 1;
+        this.timeoutNanos = timeout.toNanos();
+
+        for (int i = 0; i < size; i++) {
+            ReentrantLock lock = new ReentrantLock();
+            this.stripes[i] = lock;
+            Gauge.builder("booking.item.lock.queue", lock, ReentrantLock::getQueueLength)
+                    .description("Threads waiting for the stripe")
+                    .tag("stripe", String.valueOf(i))
+                    .register(meterRegistry);
+        }
+        waitTimer = Timer.builder("booking.item.lock.wait")
+                .description("Time spent waiting for an item stripe")
+                .register(meterRegistry);
+        timeouts = Counter.builder("booking.item.lock.timeouts")
+                .description("Transitions given up after waiting for an item stripe too long")
+                .register(meterRegistry);
+    }
+
+    public int size() {
+        return stripes.length;
+    }
+
+    /**
+     * Runs the transition holding the stripe of the item. The transition opens and completes its own transaction.
+     */
+    public <T> T callWithLock(long itemId, Supplier<T> transition) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Item lock must be taken before the transaction begins");
+        }
+
+        ReentrantLock lock = stripes[stripe(itemId)];
+        if (!acquire(lock)) {
+            timeouts.increment();
+            throw new ConflictException(format("Item with id: '%d' is being booked by another request", itemId));
+        }
+
+        try {
+            return transition.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int stripe(long itemId) {
+        long hash = itemId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private boolean acquire(ReentrantLock lock) {
+        if (lock.tryLock()) {
+            waitTimer.record(0, TimeUnit.NANOSECONDS);
+            return true;
+        }
+
+        long start = System.nanoTime();
+        try {
+            return lock.tryLock(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package ru.practicum.shareit.booking.service;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static java.time.LocalDateTime.now;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.shareit.booking.BookingRepository;
+
+/**
+ * Moves WAITING bookings whose start has passed without an owner decision to EXPIRED.
+ * Each chunk is selected by the {@code bookings_waiting_start_date_idx} index and expired by one JDBC batch
+ * in its own short transaction, so an owner approving or rejecting a booking waits for one chunk at most.
+ * On PostgreSQL a run holds a session advisory lock and is skipped while another node holds it; the lock keeps one
+ * extra pooled connection for the length of the run, next to the ones each chunk borrows. Elsewhere nothing is locked
+ * and no connection is kept between chunks.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.booking.expiry.enabled", havingValue = "true", matchIfMissing = true)
+public class WaitingBookingExpirer {
+
+    private static final long ADVISORY_LOCK_KEY = 0x5348_4152_4549_5401L;
+
+    private static final String EXPIRE = "update bookings set status = 'EXPIRED' " +
+            "where id = ? " +
+            "  and status = 'WAITING'";
+
+    private final BookingRepository bookingRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxChunksPerRun;
+    private final Duration pauseBetweenChunks;
+
+    private final Counter expired;
+
+    private volatile Boolean postgres;
+
+    @Autowired
+    public WaitingBookingExpirer(BookingRepository bookingRepository,
+                                 JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${shareit.booking.expiry.chunk-size:500}") int chunkSize,
+                                 @Value("${shareit.booking.expiry.max-chunks-per-run:100}") int maxChunksPerRun,
+                                 @Value("${shareit.booking.expiry.pause-between-chunks:50ms}")
+                                 Duration pauseBetweenChunks,
+                                 MeterRegistry meterRegistry) {
+        this.bookingRepository = bookingRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxChunksPerRun = maxChunksPerRun;
+        this.pauseBetweenChunks = pauseBetweenChunks;
+        expired = Counter.builder("booking.expired")
+                .description("WAITING bookings expired after their start had passed")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.expiry.delay:PT1M}",
+            initialDelayString = "${shareit.booking.expiry.delay:PT1M}")
+    public void scheduledRun() {
+        int count = expireStale();
+        if (count > 0) {
+            log.info("Expired {} waiting bookings", count);
+        }
+    }
+
+    /**
+     * Expires up to {@code max-chunks-per-run} chunks and returns the number of expired bookings,
+     * or 0 when another node is running.
+     */
+    public int expireStale() {
+        if (!isPostgres()) {
+            return expireInChunks(now());
+        }
+
+        // the lock belongs to the session, so its connection is kept until the run is over
+        Integer count = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            if (!tryAdvisoryLock(connection)) {
+                log.debug("Booking expiry is running on another node");
+                return 0;
+            }
+
+            try {
+                return expireInChunks(now());
+            } finally {
+                advisoryUnlock(connection);
+            }
+        });
+        return count == null ? 0 : count;
+    }
+
+    private int expireInChunks(LocalDateTime now) {
+        int total = 0;
+
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+            List<Long> ids = bookingRepository.findStaleWaitingIds(now, PageRequest.of(0, chunkSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            Integer count = transactionTemplate.execute(status -> expire(ids));
+            total += count == null ? 0 : count;
+
+            if (ids.size() < chunkSize || !pause()) {
+                break;
+            }
+        }
+
+        expired.increment(total);
+        return total;
+    }
+
+    private int expire(List<Long> ids) {
+        int[] counts = jdbcTemplate.batchUpdate(EXPIRE, ids.stream()
+                .map(id -> new Object[]{id})
+                .collect(Collectors.toList()));
+
+        int total = 0;
+        for (int count : counts) {
+            // a booking decided by its owner since the select is left as it is
+            total += Math.max(count, 0);
+        }
+        return total;
+    }
+
+    private boolean pause() {
+        if (pauseBetweenChunks.isZero()) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseBetweenChunks.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            try {
+                postgres = "PostgreSQL".equals(JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                        DatabaseMetaData::getDatabaseProductName));
+            } catch (MetaDataAccessException e) {
+                throw new IllegalStateException("Cannot tell which database bookings are expired in", e);
+            }
+        }
+        return postgres;
+    }
+
+    private static boolean tryAdvisoryLock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("select pg_try_advisory_lock(?)")) {
+            statement.setLong(1, ADVISORY_LOCK_KEY);
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() && result.getBoolean(1);
+            }
+        }
+    }
+
+    private static void advisoryUnlock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("select pg_advisory_unlock(?)")) {
+            statement.setLong(1, ADVISORY_LOCK_KEY);
+            statement.execute();
+        }
+    }
+}
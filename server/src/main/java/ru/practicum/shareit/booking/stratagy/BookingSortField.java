@@ -0,0 +1,23 @@
+package ru.practicum.shareit.booking.stratagy;
+
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.common.Cursor;
+
+@Getter
+@AllArgsConstructor
+public enum BookingSortField {
+    START_DATE("startDate", Booking::getStartDate),
+    END_DATE("endDate", Booking::getEndDate);
+
+    private final String attribute;
+    private final Function<Booking, LocalDateTime> extractor;
+
+    public Cursor cursorOf(Booking booking) {
+        return Cursor.of(extractor.apply(booking), booking.getId());
+    }
+}
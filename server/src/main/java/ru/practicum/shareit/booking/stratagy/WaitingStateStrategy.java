@@ -1,44 +1,31 @@
 package ru.practicum.shareit.booking.stratagy;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
-import org.springframework.stereotype.Component;
+import java.time.LocalDateTime;
 
-import static org.springframework.data.domain.Sort.Direction.DESC;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
 
-import lombok.AllArgsConstructor;
-import ru.practicum.shareit.booking.BookingRepository;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.State;
-import ru.practicum.shareit.common.CustomPageRequest;
 
+import static ru.practicum.shareit.booking.BookingSpecifications.statusIs;
 import static ru.practicum.shareit.booking.model.Status.WAITING;
 
 @Component
-@AllArgsConstructor
 public class WaitingStateStrategy implements BookingStateFetchStrategy {
 
-    private BookingRepository bookingRepository;
-
-    @Override
-    public Page<Booking> findBookingsByBooker(long userId, Integer offset, Integer size) {
-        return bookingRepository.findAllByBookerIdAndStatusIs(userId,
-                WAITING, getStrategyPageable(offset, size));
-    }
-
     @Override
-    public Page<Booking> findBookingsByOwner(long userId, Integer offset, Integer size) {
-        return bookingRepository.findByItemOwnerIdAndStatusIs(userId,
-                WAITING, getStrategyPageable(offset, size));
+    public State getStrategyState() {
+        return State.WAITING;
     }
 
     @Override
-    public State getStrategyState() {
-        return State.WAITING;
+    public Specification<Booking> getStateSpecification(LocalDateTime now) {
+        return statusIs(WAITING);
     }
 
     @Override
-    public Pageable getStrategyPageable(Integer offset, Integer size) {
-        return CustomPageRequest.of(offset, size, DESC, "startDate");
+    public BookingSortField getStrategySortField() {
+        return BookingSortField.START_DATE;
     }
 }
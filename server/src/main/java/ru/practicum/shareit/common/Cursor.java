@@ -0,0 +1,74 @@
+package ru.practicum.shareit.common;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import static java.lang.String.format;
+
+import org.springframework.lang.Nullable;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import ru.practicum.shareit.exception.BadRequestException;
+
+/**
+ * Position in a listing ordered by (sort key, id): the row a page has ended with.
+ * Clients only see it as an opaque string and pass it back to get the next page.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class Cursor {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final char SEPARATOR = '|';
+
+    @Nullable
+    private final LocalDateTime sortKey;
+
+    private final long id;
+
+    public static Cursor of(LocalDateTime sortKey, long id) {
+        return new Cursor(sortKey, id);
+    }
+
+    public static Cursor of(long id) {
+        return new Cursor(null, id);
+    }
+
+    /**
+     * Returns {@code null} for a blank value, which stands for the first page.
+     */
+    @Nullable
+    public static Cursor decode(@Nullable String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Separator is missing");
+            }
+
+            String sortKey = decoded.substring(0, separator);
+            long id = Long.parseLong(decoded.substring(separator + 1));
+            return new Cursor(sortKey.isEmpty() ? null : LocalDateTime.parse(sortKey), id);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException(format("Invalid cursor: %s", value));
+        }
+    }
+
+    public String encode() {
+        String raw = (sortKey == null ? "" : sortKey.toString()) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,66 @@
+package ru.practicum.shareit.common;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static java.lang.String.format;
+import static java.util.stream.Collectors.toList;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.exception.BadRequestException;
+
+@Getter
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private final List<T> content;
+
+    @Nullable
+    private final Cursor nextCursor;
+
+    /**
+     * Returns the limit to fetch rows for a page of {@code size} with.
+     */
+    public static int fetchSize(int size) {
+        if (size < 1) {
+            throw new BadRequestException(format("Invalid page size: %d", size));
+        }
+        return size + 1;
+    }
+
+    /**
+     * Builds a page from rows fetched with a limit of {@code size + 1}: the extra row only tells that there is a next page.
+     */
+    public static <T> CursorPage<T> of(List<T> fetched, int size, Function<T, Cursor> cursorExtractor) {
+        if (fetched.size() < fetchSize(size)) {
+            return new CursorPage<>(fetched, null);
+        }
+
+        List<T> content = fetched.subList(0, size);
+        return new CursorPage<>(content, cursorExtractor.apply(content.get(size - 1)));
+    }
+
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        return new CursorPage<>(content.stream()
+                .map(mapper)
+                .collect(toList()), nextCursor);
+    }
+
+    public <R> CursorPage<R> withContent(List<R> newContent) {
+        return new CursorPage<>(newContent, nextCursor);
+    }
+
+    public ResponseEntity<List<T>> toResponseEntity() {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+
+        if (nextCursor != null) {
+            response.header(Cursor.NEXT_CURSOR_HEADER, nextCursor.encode());
+        }
+
+        return response.body(content);
+    }
+}
@@ -0,0 +1,75 @@
+package ru.practicum.shareit.common;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Writes values to the response as newline-delimited JSON while they are produced. The generator flushes to the
+ * servlet stream whenever its buffer fills, so the response is sent in chunks and never held in memory whole.
+ */
+public final class NdjsonWriter<T> implements Consumer<T> {
+
+    private final ObjectWriter writer;
+    private final HttpServletResponse response;
+
+    @Nullable
+    private JsonGenerator generator;
+
+    private NdjsonWriter(ObjectMapper objectMapper, HttpServletResponse response) {
+        this.writer = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n");
+        this.response = response;
+    }
+
+    /**
+     * Hands the producer a sink that writes to the response. Nothing is written before the first value, so an
+     * exception the producer throws before it still reaches the error handler with the response untouched.
+     */
+    public static <T> void write(ObjectMapper objectMapper, HttpServletResponse response,
+                                 Consumer<Consumer<T>> producer) throws IOException {
+        NdjsonWriter<T> writer = new NdjsonWriter<>(objectMapper, response);
+        producer.accept(writer);
+        writer.finish();
+    }
+
+    @Override
+    public void accept(T value) {
+        try {
+            if (generator == null) {
+                generator = writer.createGenerator(open());
+            }
+            writer.writeValue(generator, value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void finish() throws IOException {
+        if (generator == null) {
+            open();
+            return;
+        }
+        generator.writeRaw('\n');
+        generator.close();
+    }
+
+    private OutputStream open() throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        return response.getOutputStream();
+    }
+}
@@ -1,7 +1,16 @@
 package ru.practicum.shareit.item;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -12,8 +21,14 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.common.Cursor;
+import ru.practicum.shareit.common.NdjsonWriter;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemBulkResultDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemGetDto;
 import ru.practicum.shareit.item.service.ItemService;
@@ -25,6 +40,7 @@ public class ItemController {
 
     private static final String X_SHARER_USER_ID_HEADER = "X-Sharer-User-Id";
     private final ItemService itemService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
     public List<ItemGetDto> findAllByUserId(@RequestHeader(X_SHARER_USER_ID_HEADER) long userId,
@@ -33,18 +49,47 @@ public class ItemController {
         return itemService.findAllByUserId(userId, offset, size);
     }
 
+    @GetMapping(params = "cursor")
+    public ResponseEntity<List<ItemGetDto>> findAllByUserIdAfter(@RequestHeader(X_SHARER_USER_ID_HEADER) long userId,
+                                                                 @RequestParam String cursor,
+                                                                 @RequestParam(defaultValue = "10") Integer size) {
+        return itemService.findAllByUserIdAfter(userId, Cursor.decode(cursor), size)
+                .toResponseEntity();
+    }
+
+    @GetMapping("/export")
+    public void exportAll(@RequestHeader(X_SHARER_USER_ID_HEADER) long userId,
+                          HttpServletResponse response) throws IOException {
+        NdjsonWriter.write(objectMapper, response,
+                (Consumer<ItemDto> sink) -> itemService.exportByUserId(userId, sink));
+    }
+
     @GetMapping("/{itemId}")
     public ItemGetDto getById(@PathVariable long itemId,
                               @RequestHeader(X_SHARER_USER_ID_HEADER) long userId) {
         return itemService.getById(itemId, userId);
     }
 
+    @GetMapping("/{itemId}/availability")
+    public ItemAvailabilityDto getAvailability(@PathVariable long itemId,
+                                               @RequestHeader(X_SHARER_USER_ID_HEADER) long userId,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                               LocalDateTime from,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                               LocalDateTime to) {
+        return itemService.getAvailability(itemId, userId, from, to);
+    }
+
     @GetMapping("/search")
     public List<ItemDto> search(@RequestHeader(X_SHARER_USER_ID_HEADER) long userId,
                                 @RequestParam String text,
+                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                LocalDateTime start,
+                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                LocalDateTime end,
                                 @RequestParam(defaultValue = "0") Integer offset,
                                 @RequestParam(defaultValue = "10") Integer size) {
-        return itemService.search(userId, text, offset, size);
+        return itemService.search(userId, text, start, end, offset, size);
     }
 
     @PostMapping
@@ -53,6 +98,12 @@ public class ItemController {
         return itemService.add(itemDto, userId);
     }
 
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public List<ItemBulkResultDto> addAll(@RequestHeader(X_SHARER_USER_ID_HEADER) long userId,
+                                          InputStream items) throws IOException {
+        return itemService.addAll(userId, items);
+    }
+
     @PostMapping("/{itemId}/comment")
     public CommentDto addComment(@RequestHeader(X_SHARER_USER_ID_HEADER) long userId,
                                  @PathVariable long itemId,
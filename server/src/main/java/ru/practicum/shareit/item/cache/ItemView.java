@@ -0,0 +1,20 @@
+package ru.practicum.shareit.item.cache;
+
+import java.time.LocalDateTime;
+
+import lombok.Value;
+import ru.practicum.shareit.item.dto.ItemGetDto;
+
+@Value
+public class ItemView {
+
+    ItemGetDto item;
+
+    long ownerId;
+
+    /**
+     * Moment the view goes stale by itself, e.g. when an approved booking moves from "next" to "last".
+     * {@code null} if the view only changes on writes.
+     */
+    LocalDateTime validUntil;
+}
@@ -0,0 +1,166 @@
+package ru.practicum.shareit.item.cache;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+import static java.time.LocalDateTime.now;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.shareit.item.dto.ItemGetDto;
+
+/**
+ * Read-through cache of assembled item views, the owner view and the non-owner view under separate keys.
+ * Owner views expire at the nearest booking boundary, all views are evicted on writes right away
+ * and once more after the surrounding transaction completes.
+ */
+@Slf4j
+@Component
+public class ItemViewCache {
+
+    private static final String CACHE_NAME = "itemViews";
+    private static final int STAMP_STRIPES = 256;
+
+    private final Cache<Key, ItemView> cache;
+    private final AtomicLongArray stamps = new AtomicLongArray(STAMP_STRIPES);
+
+    @Autowired
+    public ItemViewCache(@Value("${shareit.item.view-cache.enabled:true}") boolean enabled,
+                         @Value("${shareit.item.view-cache.maximum-size:10000}") long maximumSize,
+                         @Value("${shareit.item.view-cache.expire-after-write:10m}") Duration expireAfterWrite,
+                         MeterRegistry meterRegistry) {
+        if (!enabled) {
+            log.info("Item view cache is disabled");
+            cache = null;
+            return;
+        }
+
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new ItemViewExpiry(expireAfterWrite.toNanos()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public ItemGetDto get(long itemId, long userId, Supplier<ItemView> loader) {
+        if (cache == null) {
+            return loader.get().getItem();
+        }
+
+        ItemView cached = cache.getIfPresent(new Key(itemId, true));
+        if (cached == null || cached.getOwnerId() != userId) {
+            cached = cache.getIfPresent(new Key(itemId, false));
+            if (cached != null && cached.getOwnerId() == userId) {
+                cached = null;
+            }
+        }
+        if (cached != null) {
+            return cached.getItem();
+        }
+
+        int stripe = stripe(itemId);
+        long stamp = stamps.get(stripe);
+
+        ItemView view = loader.get();
+        Key key = new Key(itemId, view.getOwnerId() == userId);
+        cache.put(key, view);
+
+        // a write that committed while the view was being assembled makes it stale
+        if (stamps.get(stripe) != stamp) {
+            cache.invalidate(key);
+        }
+        return view.getItem();
+    }
+
+    public void evict(long itemId) {
+        if (cache == null) {
+            return;
+        }
+
+        runNowAndAfterCompletion(() -> {
+            stamps.incrementAndGet(stripe(itemId));
+            cache.invalidate(new Key(itemId, true));
+            cache.invalidate(new Key(itemId, false));
+        });
+    }
+
+    public void evictAll() {
+        if (cache == null) {
+            return;
+        }
+
+        runNowAndAfterCompletion(() -> {
+            for (int i = 0; i < STAMP_STRIPES; i++) {
+                stamps.incrementAndGet(i);
+            }
+            cache.invalidateAll();
+        });
+    }
+
+    private static void runNowAndAfterCompletion(Runnable action) {
+        action.run();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    private static int stripe(long itemId) {
+        return (int) (itemId & (STAMP_STRIPES - 1));
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class Key {
+        private final long itemId;
+        private final boolean ownerView;
+    }
+
+    private static class ItemViewExpiry implements Expiry<Key, ItemView> {
+
+        private final long expireAfterWriteNanos;
+
+        private ItemViewExpiry(long expireAfterWriteNanos) {
+            this.expireAfterWriteNanos = expireAfterWriteNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(Key key, ItemView view, long currentTime) {
+            if (view.getValidUntil() == null) {
+                return expireAfterWriteNanos;
+            }
+
+            long untilBoundary = Duration.between(now(), view.getValidUntil()).toNanos();
+            return Math.max(0, Math.min(expireAfterWriteNanos, untilBoundary));
+        }
+
+        @Override
+        public long expireAfterUpdate(Key key, ItemView view, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, view, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Key key, ItemView view, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
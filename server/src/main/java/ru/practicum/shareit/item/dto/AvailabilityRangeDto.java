@@ -0,0 +1,17 @@
+package ru.practicum.shareit.item.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class AvailabilityRangeDto {
+
+    private LocalDateTime start;
+
+    private LocalDateTime end;
+
+    private boolean available;
+}
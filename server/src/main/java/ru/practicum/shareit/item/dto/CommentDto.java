@@ -2,6 +2,7 @@ package ru.practicum.shareit.item.dto;
 
 import java.time.LocalDateTime;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.ToString;
@@ -9,6 +10,7 @@ import lombok.ToString;
 @Builder
 @ToString
 @Data
+@AllArgsConstructor
 public class CommentDto {
 
     private Long id;
@@ -1,16 +1,11 @@
 package ru.practicum.shareit.item.model;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import javax.persistence.Column;
 import javax.persistence.Entity;
-import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
-import javax.persistence.JoinColumn;
-import javax.persistence.OneToMany;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
 import lombok.AllArgsConstructor;
@@ -30,7 +25,8 @@ import lombok.ToString;
 @Table(name = "items")
 public class Item {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "items_seq")
+    @SequenceGenerator(name = "items_seq", sequenceName = "items_seq", allocationSize = 50)
     private Long id;
 
     private String name;
@@ -43,10 +39,6 @@ public class Item {
     @Column(name = "owner_id")
     private Long ownerId;
 
-    @OneToMany(fetch = FetchType.EAGER)
-    @JoinColumn(name = "item_id")
-    private List<Comment> comments = new ArrayList<>();
-
     @Column(name = "request_id")
     private Long requestId;
 }
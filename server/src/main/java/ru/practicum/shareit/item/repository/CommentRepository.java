@@ -1,8 +1,20 @@
 package ru.practicum.shareit.item.repository;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.model.Comment;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
+
+    @Query("select new ru.practicum.shareit.item.dto.CommentDto(c.id, c.text, c.item.id, a.name, c.created) "
+            + "from Comment c join c.author a "
+            + "where c.item.id in :itemIds "
+            + "order by c.id")
+    List<CommentDto> findAllByItemIds(@Param("itemIds") Collection<Long> itemIds);
 }
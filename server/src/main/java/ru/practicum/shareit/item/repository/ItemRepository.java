@@ -1,23 +1,77 @@
 package ru.practicum.shareit.item.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
 
     Page<Item> findByOwnerIdOrderByIdAsc(Long userId, Pageable pageable);
 
+    List<Item> findByOwnerIdAndIdGreaterThanOrderByIdAsc(Long userId, Long id, Pageable pageable);
+
+    // rows are mapped straight to DTOs, so nothing piles up in the persistence context while streaming
+    @Query("select new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.available, " +
+            "i.ownerId, i.requestId) " +
+            "from Item i " +
+            "where i.ownerId = :ownerId " +
+            "order by i.id")
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<ItemDto> streamAllByOwnerId(@Param("ownerId") Long ownerId);
+
     @Query("select i from Item i " +
             "where (upper(i.name) like upper(concat('%', ?1, '%')) " +
             " or upper(i.description) like upper(concat('%', ?1, '%'))) " +
             " and i.available = true")
     Page<Item> search(String searchText, Pageable pageable);
 
+    @Query(value = "select i.* from items i " +
+            "where (upper(i.name) like :pattern or upper(i.description) like :pattern) " +
+            "  and i.is_available = true " +
+            "order by greatest(word_similarity(upper(:text), upper(i.name)), " +
+            "                  word_similarity(upper(:text), upper(coalesce(i.description, '')))) desc, " +
+            "         i.id", nativeQuery = true)
+    List<Item> searchRanked(@Param("pattern") String upperCasePattern, @Param("text") String searchText,
+                            Pageable pageable);
+
+    @Query("select i from Item i " +
+            "where (upper(i.name) like upper(concat('%', :text, '%')) " +
+            " or upper(i.description) like upper(concat('%', :text, '%'))) " +
+            " and i.available = true " +
+            " and not exists (select b.id from Booking b " +
+            "                 where b.item.id = i.id " +
+            "                   and b.status = ru.practicum.shareit.booking.model.Status.APPROVED " +
+            "                   and b.startDate < :end " +
+            "                   and b.endDate > :start) " +
+            "order by i.id")
+    List<Item> searchAvailable(@Param("text") String searchText, @Param("start") LocalDateTime start,
+                               @Param("end") LocalDateTime end, Pageable pageable);
+
+    @Query(value = "select i.* from items i " +
+            "where (upper(i.name) like :pattern or upper(i.description) like :pattern) " +
+            "  and i.is_available = true " +
+            "  and not exists (select 1 from bookings b " +
+            "                  where b.item_id = i.id " +
+            "                    and b.status = 'APPROVED' " +
+            "                    and tsrange(b.start_date, b.end_date) && tsrange(:start, :end)) " +
+            "order by greatest(word_similarity(upper(:text), upper(i.name)), " +
+            "                  word_similarity(upper(:text), upper(coalesce(i.description, '')))) desc, " +
+            "         i.id", nativeQuery = true)
+    List<Item> searchRankedAvailable(@Param("pattern") String upperCasePattern, @Param("text") String searchText,
+                                     @Param("start") LocalDateTime start, @Param("end") LocalDateTime end,
+                                     Pageable pageable);
+
     List<Item> findAllByRequestIdIn(List<Long> requestsId);
 }
@@ -0,0 +1,70 @@
+package ru.practicum.shareit.item.search;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IndexItemSearchEngine implements ItemSearchEngine {
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final ItemSearchIndex searchIndex = new ItemSearchIndex();
+
+    @Override
+    public List<Item> search(String searchText, Pageable pageable) {
+        return searchIndex.search(searchText, pageable.getOffset(), pageable.getPageSize());
+    }
+
+    @Override
+    public List<Item> searchAvailable(String searchText, LocalDateTime start, LocalDateTime end,
+                                      Pageable pageable) {
+        return searchIndex.search(searchText, pageable.getOffset(), pageable.getPageSize(),
+                itemIds -> bookingRepository.findApprovedItemIdsOverlapping(itemIds, start, end));
+    }
+
+    @Override
+    public ItemSearchEngineType getEngineType() {
+        return ItemSearchEngineType.INDEX;
+    }
+
+    @Override
+    public void warmUp() {
+        searchIndex.clear();
+
+        Pageable pageable = PageRequest.of(0, LOAD_BATCH_SIZE, Sort.by("id"));
+        Page<Item> items;
+        do {
+            items = itemRepository.findAll(pageable);
+            searchIndex.putAll(items.getContent());
+            pageable = items.nextPageable();
+        } while (items.hasNext());
+
+        log.info("Item search index is built for {} items", searchIndex.size());
+    }
+
+    @Override
+    public void index(Item item) {
+        searchIndex.put(item);
+    }
+
+    @Override
+    public void removeAllByOwnerId(long ownerId) {
+        searchIndex.removeAllByOwnerId(ownerId);
+    }
+}
@@ -0,0 +1,29 @@
+package ru.practicum.shareit.item.search;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+
+import ru.practicum.shareit.item.model.Item;
+
+public interface ItemSearchEngine {
+
+    List<Item> search(String searchText, Pageable pageable);
+
+    /**
+     * Same as {@link #search} without items that have an approved booking overlapping {@code [start, end)}.
+     */
+    List<Item> searchAvailable(String searchText, LocalDateTime start, LocalDateTime end, Pageable pageable);
+
+    ItemSearchEngineType getEngineType();
+
+    default void warmUp() {
+    }
+
+    default void index(Item item) {
+    }
+
+    default void removeAllByOwnerId(long ownerId) {
+    }
+}
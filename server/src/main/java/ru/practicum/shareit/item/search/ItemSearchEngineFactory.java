@@ -0,0 +1,40 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+import static java.lang.String.format;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ItemSearchEngineFactory {
+
+    private final Map<ItemSearchEngineType, ItemSearchEngine> engines = new EnumMap<>(ItemSearchEngineType.class);
+    private final ItemSearchEngineType engineType;
+
+    @Autowired
+    public ItemSearchEngineFactory(Set<ItemSearchEngine> engineSet,
+                                   @Value("${shareit.item.search.engine:LIKE}") ItemSearchEngineType engineType) {
+        engineSet.forEach(engine -> engines.put(engine.getEngineType(), engine));
+
+        if (!engines.containsKey(engineType)) {
+            throw new IllegalStateException(format("Item search engine '%s' is not available", engineType));
+        }
+        this.engineType = engineType;
+    }
+
+    public ItemSearchEngine getEngine() {
+        return engines.get(engineType);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        getEngine().warmUp();
+    }
+}
@@ -0,0 +1,413 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNullElse;
+import static java.util.stream.Collectors.toList;
+
+import ru.practicum.shareit.item.model.Item;
+
+/**
+ * Inverted index over lower-cased item names and descriptions.
+ * Every 3-gram of a field maps to a sorted posting list of the ids of available items containing it,
+ * so a substring query intersects the posting lists of its own 3-grams and then verifies the candidates.
+ * Shorter queries would hit posting lists holding most of the catalogue, so they scan the items in id order instead.
+ */
+public class ItemSearchIndex {
+
+    private static final int GRAM_LENGTH = 3;
+    private static final int EXCLUSION_BATCH_SIZE = 500;
+    private static final long[] EMPTY = new long[0];
+
+    private final NavigableMap<Long, Entry> entries = new TreeMap<>();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void put(Item item) {
+        Entry entry = new Entry(item);
+
+        lock.writeLock().lock();
+        try {
+            unindex(entries.put(entry.id, entry));
+            if (entry.available) {
+                entry.grams().forEach(gram -> postings.computeIfAbsent(gram, key -> new PostingList()).add(entry.id));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Bulk variant of {@link #put} for loading the index: ids are appended to the posting lists as they come and
+     * every list left out of order is sorted once at the end, so loading items in id order never shifts a list.
+     */
+    public void putAll(Collection<Item> items) {
+        lock.writeLock().lock();
+        try {
+            Set<PostingList> unsorted = new HashSet<>();
+            for (Item item : items) {
+                Entry entry = new Entry(item);
+                Entry previous = entries.put(entry.id, entry);
+                if (previous != null) {
+                    // removal needs sorted lists
+                    unsorted.forEach(PostingList::sort);
+                    unsorted.clear();
+                    unindex(previous);
+                }
+                if (entry.available) {
+                    entry.grams().forEach(gram ->
+                            append(postings.computeIfAbsent(gram, key -> new PostingList()), entry.id, unsorted));
+                }
+            }
+            unsorted.forEach(PostingList::sort);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long itemId) {
+        lock.writeLock().lock();
+        try {
+            unindex(entries.remove(itemId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeAllByOwnerId(long ownerId) {
+        lock.writeLock().lock();
+        try {
+            entries.values().stream()
+                    .filter(entry -> entry.ownerId != null && entry.ownerId == ownerId)
+                    .map(entry -> entry.id)
+                    .collect(toList())
+                    .forEach(this::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            postings.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Item> search(String searchText, long offset, int size) {
+        return search(searchText, offset, size, ids -> Set.of());
+    }
+
+    /**
+     * Skips excluded items before counting the offset, so a page is only short at the end of the matches.
+     * Matches are handed to {@code excludedAmong} in batches of up to {@value #EXCLUSION_BATCH_SIZE} ids, outside
+     * the lock, and only as many batches are read as the page needs.
+     */
+    public List<Item> search(String searchText, long offset, int size,
+                             Function<List<Long>, Set<Long>> excludedAmong) {
+        String query = searchText.toLowerCase(Locale.ROOT);
+        List<Item> found = new ArrayList<>(size);
+        if (query.isEmpty()) {
+            return found;
+        }
+
+        long[] candidates = query.length() < GRAM_LENGTH ? null : findCandidates(query);
+        long skipped = 0;
+        long afterId = Long.MIN_VALUE;
+        while (true) {
+            // the first batch is what the page needs if nothing is excluded, later ones are full
+            int limit = afterId == Long.MIN_VALUE
+                    ? (int) Math.min(EXCLUSION_BATCH_SIZE, offset + size)
+                    : EXCLUSION_BATCH_SIZE;
+            List<Item> matches = findMatches(query, candidates, afterId, limit);
+            if (matches.isEmpty()) {
+                return found;
+            }
+            afterId = matches.get(matches.size() - 1).getId();
+
+            Set<Long> excluded = excludedAmong.apply(matches.stream().map(Item::getId).collect(toList()));
+            for (Item item : matches) {
+                if (excluded.contains(item.getId())) {
+                    continue;
+                }
+                if (skipped++ < offset) {
+                    continue;
+                }
+                found.add(item);
+                if (found.size() == size) {
+                    return found;
+                }
+            }
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} matching items with ids greater than {@code afterId}. Without candidates every
+     * item is checked, in id order.
+     */
+    private List<Item> findMatches(String query, long[] candidates, long afterId, int limit) {
+        List<Item> matches = new ArrayList<>(limit);
+
+        lock.readLock().lock();
+        try {
+            Iterable<Entry> entriesAfter;
+            if (candidates == null) {
+                entriesAfter = entries.tailMap(afterId, false).values();
+            } else {
+                int position = Arrays.binarySearch(candidates, afterId);
+                int from = position >= 0 ? position + 1 : -position - 1;
+                // an item removed since the candidates were found has no entry
+                entriesAfter = () -> Arrays.stream(candidates, from, candidates.length)
+                        .mapToObj(entries::get)
+                        .filter(Objects::nonNull)
+                        .iterator();
+            }
+
+            for (Entry entry : entriesAfter) {
+                if (entry.matches(query)) {
+                    matches.add(entry.toItem());
+                    if (matches.size() == limit) {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return matches;
+    }
+
+    private long[] findCandidates(String query) {
+        lock.readLock().lock();
+        try {
+            return findCandidatesLocked(query);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] findCandidatesLocked(String query) {
+        Set<String> grams = new HashSet<>();
+        addGrams(query, grams);
+
+        PostingList[] lists = new PostingList[grams.size()];
+        int i = 0;
+        for (String gram : grams) {
+            PostingList list = postings.get(gram);
+            if (list == null) {
+                return EMPTY;
+            }
+            lists[i++] = list;
+        }
+
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+        long[] result = lists[0].toArray();
+        for (int j = 1; j < lists.length && result.length > 0; j++) {
+            result = intersect(result, lists[j].ids, lists[j].size);
+        }
+        return result;
+    }
+
+    private void unindex(Entry previous) {
+        if (previous == null || !previous.available) {
+            return;
+        }
+        previous.grams().forEach(gram -> {
+            PostingList list = postings.get(gram);
+            if (list != null && list.remove(previous.id) && list.size == 0) {
+                postings.remove(gram);
+            }
+        });
+    }
+
+    private static void append(PostingList list, long id, Set<PostingList> unsorted) {
+        if (!list.append(id)) {
+            unsorted.add(list);
+        }
+    }
+
+    static long[] intersect(long[] shorter, long[] longer, int longerLength) {
+        long[] result = new long[shorter.length];
+        int count = 0;
+
+        if (longerLength / 8 > shorter.length) {
+            int from = 0;
+            for (long id : shorter) {
+                int position = Arrays.binarySearch(longer, from, longerLength, id);
+                if (position >= 0) {
+                    result[count++] = id;
+                    from = position + 1;
+                } else {
+                    from = -position - 1;
+                }
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < shorter.length && j < longerLength) {
+                if (shorter[i] == longer[j]) {
+                    result[count++] = shorter[i];
+                    i++;
+                    j++;
+                } else if (shorter[i] < longer[j]) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+        }
+
+        return Arrays.copyOf(result, count);
+    }
+
+    private static void addGrams(String text, Set<String> grams) {
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_LENGTH));
+        }
+    }
+
+    /**
+     * Sorted ids with spare capacity, updated in place. Items get increasing ids, so a new posting is almost always
+     * appended at the end.
+     */
+    private static final class PostingList {
+
+        private long[] ids = new long[4];
+        private int size;
+
+        private void add(long id) {
+            if (size == 0 || id > ids[size - 1]) {
+                append(id);
+                return;
+            }
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            int insertAt = -position - 1;
+            ensureCapacity();
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            size++;
+        }
+
+        /**
+         * Appends without keeping the order.
+         *
+         * @return false if the list is no longer sorted and needs {@link #sort}
+         */
+        private boolean append(long id) {
+            ensureCapacity();
+            ids[size++] = id;
+            return size == 1 || ids[size - 2] < id;
+        }
+
+        private void sort() {
+            Arrays.sort(ids, 0, size);
+            int unique = 0;
+            for (int i = 0; i < size; i++) {
+                if (unique == 0 || ids[unique - 1] != ids[i]) {
+                    ids[unique++] = ids[i];
+                }
+            }
+            size = unique;
+        }
+
+        private boolean remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            return true;
+        }
+
+        private void clear() {
+            ids = new long[4];
+            size = 0;
+        }
+
+        private long[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+
+        private void ensureCapacity() {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length + (ids.length >> 1));
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        private final long id;
+        private final String name;
+        private final String description;
+        private final String lowerName;
+        private final String lowerDescription;
+        private final boolean available;
+        private final Long ownerId;
+        private final Long requestId;
+
+        private Entry(Item item) {
+            id = item.getId();
+            name = item.getName();
+            description = item.getDescription();
+            lowerName = requireNonNullElse(name, "").toLowerCase(Locale.ROOT);
+            lowerDescription = requireNonNullElse(description, "").toLowerCase(Locale.ROOT);
+            available = Boolean.TRUE.equals(item.getAvailable());
+            ownerId = item.getOwnerId();
+            requestId = item.getRequestId();
+        }
+
+        private Set<String> grams() {
+            Set<String> grams = new HashSet<>();
+            addGrams(lowerName, grams);
+            addGrams(lowerDescription, grams);
+            return grams;
+        }
+
+        private boolean matches(String query) {
+            return available && (lowerName.contains(query) || lowerDescription.contains(query));
+        }
+
+        private Item toItem() {
+            return Item.builder()
+                    .id(id)
+                    .name(name)
+                    .description(description)
+                    .available(available)
+                    .ownerId(ownerId)
+                    .requestId(requestId)
+                    .build();
+        }
+    }
+}
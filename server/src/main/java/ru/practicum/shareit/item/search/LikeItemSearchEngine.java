@@ -0,0 +1,34 @@
+package ru.practicum.shareit.item.search;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import lombok.AllArgsConstructor;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+@Component
+@AllArgsConstructor
+public class LikeItemSearchEngine implements ItemSearchEngine {
+
+    private ItemRepository itemRepository;
+
+    @Override
+    public List<Item> search(String searchText, Pageable pageable) {
+        return itemRepository.search(searchText, pageable).getContent();
+    }
+
+    @Override
+    public List<Item> searchAvailable(String searchText, LocalDateTime start, LocalDateTime end,
+                                      Pageable pageable) {
+        return itemRepository.searchAvailable(searchText, start, end, pageable);
+    }
+
+    @Override
+    public ItemSearchEngineType getEngineType() {
+        return ItemSearchEngineType.LIKE;
+    }
+}
@@ -0,0 +1,39 @@
+package ru.practicum.shareit.item.search;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import lombok.AllArgsConstructor;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+@Component
+@AllArgsConstructor
+public class TrigramItemSearchEngine implements ItemSearchEngine {
+
+    private ItemRepository itemRepository;
+
+    @Override
+    public List<Item> search(String searchText, Pageable pageable) {
+        String pattern = "%" + searchText.toUpperCase(Locale.ROOT) + "%";
+
+        return itemRepository.searchRanked(pattern, searchText, pageable);
+    }
+
+    @Override
+    public List<Item> searchAvailable(String searchText, LocalDateTime start, LocalDateTime end,
+                                      Pageable pageable) {
+        String pattern = "%" + searchText.toUpperCase(Locale.ROOT) + "%";
+
+        return itemRepository.searchRankedAvailable(pattern, searchText, start, end, pageable);
+    }
+
+    @Override
+    public ItemSearchEngineType getEngineType() {
+        return ItemSearchEngineType.TRIGRAM;
+    }
+}
@@ -0,0 +1,206 @@
+package ru.practicum.shareit.item.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+
+import static java.util.Comparator.comparingInt;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.shareit.item.dto.ItemBulkResultDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.item.search.ItemSearchEngineFactory;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.ItemRequestRepository;
+
+/**
+ * Imports items of one owner from a JSON array or NDJSON. Rows are read one at a time and saved in batches of
+ * {@code batch-size}, each in its own transaction, so memory does not grow with the body and a rejected row
+ * never rolls back the others. The persistence context is cleared after every batch: with open-in-view the request
+ * keeps one entity manager, which would otherwise hold and dirty-check every item saved so far. Returns one result
+ * per row, ordered by row index.
+ */
+@Slf4j
+@Component
+public class ItemBulkImporter {
+
+    private final ItemRepository itemRepository;
+    private final ItemRequestRepository itemRequestRepository;
+    private final ItemMapper itemMapper;
+    private final ItemSearchEngineFactory searchEngineFactory;
+    private final ObjectReader reader;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final int batchSize;
+
+    @Autowired
+    public ItemBulkImporter(ItemRepository itemRepository,
+                            ItemRequestRepository itemRequestRepository,
+                            ItemMapper itemMapper,
+                            ItemSearchEngineFactory searchEngineFactory,
+                            ObjectMapper objectMapper,
+                            PlatformTransactionManager transactionManager,
+                            EntityManager entityManager,
+                            @Value("${shareit.item.bulk.batch-size:500}") int batchSize) {
+        this.itemRepository = itemRepository;
+        this.itemRequestRepository = itemRequestRepository;
+        this.itemMapper = itemMapper;
+        this.searchEngineFactory = searchEngineFactory;
+        this.reader = objectMapper.readerFor(ItemDto.class);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.batchSize = batchSize;
+    }
+
+    public List<ItemBulkResultDto> importItems(long ownerId, InputStream body) throws IOException {
+        List<ItemBulkResultDto> results = new ArrayList<>();
+        List<Row> batch = new ArrayList<>(batchSize);
+
+        // a root-level array is unwrapped, so the same iterator reads both formats
+        try (MappingIterator<ItemDto> rows = reader.readValues(body)) {
+            for (int index = 0; ; index++) {
+                ItemDto itemDto;
+                try {
+                    if (!rows.hasNextValue()) {
+                        break;
+                    }
+                    itemDto = rows.nextValue();
+                } catch (JsonMappingException e) {
+                    // the iterator skips the rest of the row and goes on with the next one
+                    results.add(failed(index, "Row is not an item: " + e.getOriginalMessage()));
+                    continue;
+                } catch (JsonProcessingException e) {
+                    results.add(failed(index, "Malformed JSON: " + e.getOriginalMessage()));
+                    break;
+                }
+
+                String error = validate(itemDto);
+                if (error != null) {
+                    results.add(failed(index, error));
+                    continue;
+                }
+
+                Item item = itemMapper.toItem(itemDto);
+                item.setId(null);
+                item.setOwnerId(ownerId);
+                batch.add(new Row(index, item));
+
+                if (batch.size() == batchSize) {
+                    save(batch, results);
+                    batch.clear();
+                }
+            }
+        }
+        save(batch, results);
+
+        results.sort(comparingInt(ItemBulkResultDto::getIndex));
+        log.info("Imported {} items of owner {}", results.stream().filter(r -> r.getId() != null).count(),
+                ownerId);
+        return results;
+    }
+
+    private void save(List<Row> batch, List<ItemBulkResultDto> results) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Set<Long> requestIds = batch.stream()
+                .map(row -> row.item.getRequestId())
+                .filter(Objects::nonNull)
+                .collect(toSet());
+        Set<Long> knownRequestIds = requestIds.isEmpty()
+                ? Set.of()
+                : itemRequestRepository.findAllById(requestIds).stream()
+                .map(ItemRequest::getId)
+                .collect(toSet());
+
+        List<Row> valid = new ArrayList<>(batch.size());
+        for (Row row : batch) {
+            Long requestId = row.item.getRequestId();
+            if (requestId != null && !knownRequestIds.contains(requestId)) {
+                results.add(failed(row.index, "requestId: request " + requestId + " does not exist"));
+            } else {
+                valid.add(row);
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    itemRepository.saveAll(valid.stream().map(row -> row.item).collect(toList())));
+        } catch (DataIntegrityViolationException e) {
+            // a request of the batch was deleted after the check
+            valid.forEach(row -> results.add(failed(row.index, "Batch was rolled back: " +
+                    e.getMostSpecificCause().getMessage())));
+            return;
+        } finally {
+            // the batch is committed, so its items and requests only need to be detached
+            entityManager.clear();
+        }
+
+        ItemSearchEngine engine = searchEngineFactory.getEngine();
+        for (Row row : valid) {
+            engine.index(row.item);
+            results.add(ItemBulkResultDto.builder()
+                    .index(row.index)
+                    .id(row.item.getId())
+                    .build());
+        }
+    }
+
+    private static String validate(ItemDto itemDto) {
+        List<String> errors = new ArrayList<>();
+        if (isBlank(itemDto.getName())) {
+            errors.add("name: must not be blank");
+        }
+        if (isBlank(itemDto.getDescription())) {
+            errors.add("description: must not be blank");
+        }
+        if (itemDto.getAvailable() == null) {
+            errors.add("available: must not be null");
+        }
+        if (itemDto.getRequestId() != null && itemDto.getRequestId() <= 0) {
+            errors.add("requestId: must be greater than 0");
+        }
+        return errors.isEmpty() ? null : String.join("; ", errors);
+    }
+
+    private static ItemBulkResultDto failed(int index, String error) {
+        return ItemBulkResultDto.builder()
+                .index(index)
+                .error(error)
+                .build();
+    }
+
+    @AllArgsConstructor
+    private static class Row {
+        private final int index;
+        private final Item item;
+    }
+}
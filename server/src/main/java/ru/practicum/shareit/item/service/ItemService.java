@@ -1,8 +1,16 @@
 package ru.practicum.shareit.item.service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
+import ru.practicum.shareit.common.Cursor;
+import ru.practicum.shareit.common.CursorPage;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemBulkResultDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemGetDto;
 
@@ -10,13 +18,22 @@ public interface ItemService {
 
     List<ItemGetDto> findAllByUserId(long userId, Integer offset, Integer size);
 
+    void exportByUserId(long userId, Consumer<ItemDto> sink);
+
+    CursorPage<ItemGetDto> findAllByUserIdAfter(long userId, Cursor cursor, int size);
+
     ItemGetDto getById(long itemId, long userId);
 
+    ItemAvailabilityDto getAvailability(long itemId, long userId, LocalDateTime from, LocalDateTime to);
+
     ItemDto add(ItemDto itemDto, long userId);
 
+    List<ItemBulkResultDto> addAll(long userId, InputStream items) throws IOException;
+
     ItemDto update(ItemDto itemDto, long itemId, long userId);
 
-    List<ItemDto> search(long userId, String searchText, Integer offset, Integer size);
+    List<ItemDto> search(long userId, String searchText, LocalDateTime start, LocalDateTime end,
+                         Integer offset, Integer size);
 
     CommentDto addComment(long userId, long itemId, CommentDto commentDto);
 }
@@ -1,18 +1,30 @@
 package ru.practicum.shareit.item.service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static java.lang.String.format;
 import static java.time.LocalDateTime.now;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
+import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
 
 
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import static org.apache.commons.lang3.StringUtils.isNoneBlank;
 
@@ -20,12 +32,22 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import ru.practicum.shareit.booking.BookingMapper;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.conflict.AvailabilityRange;
+import ru.practicum.shareit.booking.conflict.BookingConflictIndex;
 import ru.practicum.shareit.booking.dto.BookingDtoForItem;
+import ru.practicum.shareit.booking.dto.BookingForItemView;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.common.Cursor;
+import ru.practicum.shareit.common.CursorPage;
 import ru.practicum.shareit.common.CustomPageRequest;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.cache.ItemView;
+import ru.practicum.shareit.item.cache.ItemViewCache;
+import ru.practicum.shareit.item.dto.AvailabilityRangeDto;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemBulkResultDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemGetDto;
 import ru.practicum.shareit.item.mapper.CommentMapper;
@@ -34,6 +56,7 @@ import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchEngineFactory;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
@@ -44,6 +67,9 @@ import static ru.practicum.shareit.booking.model.Status.APPROVED;
 @RequiredArgsConstructor
 public class ItemServiceImpl implements ItemService {
 
+    private static final Duration BOUNDARY_MARGIN = Duration.ofMillis(1);
+    private static final Duration MAX_AVAILABILITY_PERIOD = Duration.ofDays(366);
+
     private final BookingRepository bookingRepository;
     private final CommentRepository commentRepository;
     private final ItemRepository itemRepository;
@@ -51,6 +77,10 @@ public class ItemServiceImpl implements ItemService {
     private final BookingMapper bookingMapper;
     private final CommentMapper commentMapper;
     private final ItemMapper itemMapper;
+    private final ItemSearchEngineFactory searchEngineFactory;
+    private final ItemViewCache itemViewCache;
+    private final BookingConflictIndex conflictIndex;
+    private final ItemBulkImporter bulkImporter;
 
     @Override
     public List<ItemGetDto> findAllByUserId(long userId, Integer offset, Integer size) {
@@ -59,54 +89,72 @@ public class ItemServiceImpl implements ItemService {
         Pageable pageable = CustomPageRequest.of(offset, size);
 
         List<Item> items = itemRepository.findByOwnerIdOrderByIdAsc(userId, pageable).getContent();
-        List<ItemGetDto> foundItems = new ArrayList<>();
 
-        items.forEach(item -> {
-            ItemGetDto itemGetDto = itemMapper.toItemGetDto(item);
+        return toItemGetDtoList(items);
+    }
 
-            BookingDtoForItem next = getNextBooking(itemGetDto.getId())
-                    .stream()
-                    .findFirst()
-                    .orElse(null);
-            BookingDtoForItem last = getLastBooking(itemGetDto.getId())
-                    .stream()
-                    .findFirst()
-                    .orElse(null);
+    @Override
+    @Transactional(readOnly = true)
+    public void exportByUserId(long userId, Consumer<ItemDto> sink) {
+        throwIfUserDoesntExist(userId);
 
-            itemGetDto.setNextBooking(next);
-            itemGetDto.setLastBooking(last);
-            addComments(item, itemGetDto);
+        try (Stream<ItemDto> items = itemRepository.streamAllByOwnerId(userId)) {
+            items.forEach(sink);
+        }
+    }
 
-            foundItems.add(itemGetDto);
-        });
+    @Override
+    public CursorPage<ItemGetDto> findAllByUserIdAfter(long userId, Cursor cursor, int size) {
+        throwIfUserDoesntExist(userId);
 
-        return foundItems;
+        long lastId = cursor == null ? 0 : cursor.getId();
+        List<Item> items = itemRepository.findByOwnerIdAndIdGreaterThanOrderByIdAsc(userId, lastId,
+                PageRequest.of(0, CursorPage.fetchSize(size)));
+
+        CursorPage<Item> page = CursorPage.of(items, size, item -> Cursor.of(item.getId()));
+        return page.withContent(toItemGetDtoList(page.getContent()));
     }
 
     @Override
     public ItemGetDto getById(long itemId, long userId) {
         throwIfUserDoesntExist(userId);
 
-        var item = getItemById(itemId);
+        ItemGetDto itemGetDto = itemViewCache.get(itemId, userId, () -> loadItemView(itemId, userId));
 
-        ItemGetDto itemGetDto = itemMapper.toItemGetDto(item);
+        log.info("Item '{}' is successfully retrieved", itemGetDto.getName());
+        return itemGetDto;
+    }
 
-        if (userId == item.getOwnerId()) {
-            BookingDtoForItem next = getNextBooking(item.getId())
-                    .stream()
-                    .findFirst()
-                    .orElse(null);
-            BookingDtoForItem last = getLastBooking(item.getId())
-                    .stream()
-                    .findFirst()
-                    .orElse(null);
+    @Override
+    public ItemAvailabilityDto getAvailability(long itemId, long userId, LocalDateTime from, LocalDateTime to) {
+        throwIfUserDoesntExist(userId);
 
-            itemGetDto.setNextBooking(next);
-            itemGetDto.setLastBooking(last);
+        if (!from.isBefore(to)) {
+            throw new BadRequestException("Start of the period must be before its end");
+        }
+        if (Duration.between(from, to).compareTo(MAX_AVAILABILITY_PERIOD) > 0) {
+            throw new BadRequestException(format("Period must not be longer than %d days",
+                    MAX_AVAILABILITY_PERIOD.toDays()));
+        }
+        if (!itemRepository.existsById(itemId)) {
+            throw new NotFoundException(format("Item with id '%d' does not exist", itemId));
         }
 
-        log.info("Item '{}' is successfully retrieved", item.getName());
-        return addComments(item, itemGetDto);
+        // the calendar only knows bookings that have not ended yet
+        var now = now();
+        var start = from.isBefore(now) ? now : from;
+        List<AvailabilityRange> ranges = start.isBefore(to)
+                ? conflictIndex.getAvailability(itemId, start, to)
+                : emptyList();
+
+        return ItemAvailabilityDto.builder()
+                .itemId(itemId)
+                .from(start)
+                .to(to)
+                .ranges(ranges.stream()
+                        .map(this::toAvailabilityRangeDto)
+                        .collect(toList()))
+                .build();
     }
 
     @Override
@@ -117,10 +165,18 @@ public class ItemServiceImpl implements ItemService {
         item.setOwnerId(userId);
 
         itemRepository.save(item);
+        searchEngineFactory.getEngine().index(item);
         log.info("Item '{}' is successfully added", item.getName());
         return itemMapper.toItemDto(item);
     }
 
+    @Override
+    public List<ItemBulkResultDto> addAll(long userId, InputStream items) throws IOException {
+        throwIfUserDoesntExist(userId);
+
+        return bulkImporter.importItems(userId, items);
+    }
+
     @Override
     public ItemDto update(ItemDto itemDto, long itemId, long userId) {
         var item = getItemById(itemId);
@@ -142,12 +198,14 @@ public class ItemServiceImpl implements ItemService {
         }
 
         itemRepository.save(item);
+        searchEngineFactory.getEngine().index(item);
+        itemViewCache.evict(item.getId());
 
         return itemMapper.toItemDto(item);
     }
 
     @Override
-    public List<ItemDto> search(long userId, String searchText,
+    public List<ItemDto> search(long userId, String searchText, LocalDateTime start, LocalDateTime end,
                                 Integer offset, Integer size) {
         List<Item> items;
 
@@ -158,8 +216,17 @@ public class ItemServiceImpl implements ItemService {
 
         throwIfUserDoesntExist(userId);
 
+        if (isNull(start) != isNull(end)) {
+            throw new BadRequestException("Both start and end of the period must be given");
+        }
+        if (nonNull(start) && !start.isBefore(end)) {
+            throw new BadRequestException("Start of the period must be before its end");
+        }
+
         Pageable pageable = CustomPageRequest.of(offset, size);
-        items = itemRepository.search(searchText.toLowerCase(), pageable).getContent();
+        items = isNull(start)
+                ? searchEngineFactory.getEngine().search(searchText.toLowerCase(), pageable)
+                : searchEngineFactory.getEngine().searchAvailable(searchText.toLowerCase(), start, end, pageable);
 
         return items.stream()
                 .map(itemMapper::toItemDto)
@@ -185,21 +252,72 @@ public class ItemServiceImpl implements ItemService {
         Comment comment = commentMapper.toComment(commentDto, item, user);
         comment.setCreated(now());
         comment = commentRepository.save(comment);
+        itemViewCache.evict(item.getId());
 
         return commentMapper.toCommentDto(comment);
     }
 
-    public List<BookingDtoForItem> getNextBooking(Long itemId) {
-        List<Booking> bookings =
-                bookingRepository.findAllByItemIdAndStartDateIsAfterOrderByStartDateDesc(itemId, now());
+    private List<ItemGetDto> toItemGetDtoList(List<Item> items) {
+        List<Long> itemIds = items.stream()
+                .map(Item::getId)
+                .collect(toList());
+
+        var now = now();
+        Map<Long, BookingDtoForItem> nextBookings = getNextBookings(itemIds, now);
+        Map<Long, BookingDtoForItem> lastBookings = getLastBookings(itemIds, now);
+        Map<Long, List<CommentDto>> comments = getComments(itemIds);
+
+        List<ItemGetDto> foundItems = new ArrayList<>();
+
+        items.forEach(item -> {
+            ItemGetDto itemGetDto = itemMapper.toItemGetDto(item);
+
+            itemGetDto.setNextBooking(nextBookings.get(item.getId()));
+            itemGetDto.setLastBooking(lastBookings.get(item.getId()));
+            itemGetDto.setComments(comments.getOrDefault(item.getId(), emptyList()));
+
+            foundItems.add(itemGetDto);
+        });
+
+        return foundItems;
+    }
+
+    private ItemView loadItemView(long itemId, long userId) {
+        var item = getItemById(itemId);
+
+        ItemGetDto itemGetDto = itemMapper.toItemGetDto(item);
+        LocalDateTime validUntil = null;
+
+        if (userId == item.getOwnerId()) {
+            var now = now();
+            List<Long> itemIds = List.of(item.getId());
+
+            itemGetDto.setNextBooking(getNextBookings(itemIds, now).get(item.getId()));
+            itemGetDto.setLastBooking(getLastBookings(itemIds, now).get(item.getId()));
+            validUntil = bookingRepository.findNextApprovedBoundaryByItemId(item.getId(), now)
+                    .map(boundary -> boundary.plus(BOUNDARY_MARGIN))
+                    .orElse(null);
+        }
+
+        itemGetDto.setComments(getComments(List.of(item.getId())).getOrDefault(item.getId(), emptyList()));
+
+        return new ItemView(itemGetDto, item.getOwnerId(), validUntil);
+    }
 
-        return getBookingDtoForItemList(bookings);
+    private Map<Long, BookingDtoForItem> getNextBookings(List<Long> itemIds, LocalDateTime now) {
+        if (itemIds.isEmpty()) {
+            return emptyMap();
+        }
+
+        return toBookingDtoForItemMap(bookingRepository.findNextApprovedByItemIds(itemIds, now));
     }
 
-    public List<BookingDtoForItem> getLastBooking(Long itemId) {
-        List<Booking> bookings = bookingRepository.findAllByItemIdAndEndDateIsBeforeOrderByEndDateDesc(itemId, now());
+    private Map<Long, BookingDtoForItem> getLastBookings(List<Long> itemIds, LocalDateTime now) {
+        if (itemIds.isEmpty()) {
+            return emptyMap();
+        }
 
-        return getBookingDtoForItemList(bookings);
+        return toBookingDtoForItemMap(bookingRepository.findLastApprovedByItemIds(itemIds, now));
     }
 
     private Item getItemById(long id) {
@@ -207,33 +325,31 @@ public class ItemServiceImpl implements ItemService {
                 .orElseThrow(() -> new NotFoundException(format("Item with id '%d' does not exist", id)));
     }
 
+    private AvailabilityRangeDto toAvailabilityRangeDto(AvailabilityRange range) {
+        return AvailabilityRangeDto.builder()
+                .start(range.getStart())
+                .end(range.getEnd())
+                .available(range.isAvailable())
+                .build();
+    }
+
     private void throwIfUserDoesntExist(long id) {
         if (!userRepository.existsById(id)) {
             throw new NotFoundException(format("User with id '%d' does not exist", id));
         }
     }
 
-    private List<BookingDtoForItem> getBookingDtoForItemList(List<Booking> bookings) {
+    private Map<Long, BookingDtoForItem> toBookingDtoForItemMap(List<BookingForItemView> bookings) {
         return bookings.stream()
-                .filter(booking -> booking.getStatus().equals(APPROVED))
-                .map(bookingMapper::toBookingDtoForItem)
-                .collect(toList());
+                .collect(toMap(BookingForItemView::getItemId, bookingMapper::toBookingDtoForItem));
     }
 
-
-    private ItemGetDto addComments(Item item, ItemGetDto itemGetDto) {
-        if (item.getComments().isEmpty()) {
-            itemGetDto.setComments(emptyList());
-        } else {
-            itemGetDto.setComments(new ArrayList<>());
-            for (Comment comment : item.getComments()) {
-                if (comment.getItem().getId().equals(item.getId())) {
-                    CommentDto commentDto = commentMapper.toCommentDto(comment);
-                    commentDto.setAuthorName(comment.getAuthor().getName());
-                    itemGetDto.getComments().add(commentDto);
-                }
-            }
+    private Map<Long, List<CommentDto>> getComments(List<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return emptyMap();
         }
-        return itemGetDto;
+
+        return commentRepository.findAllByItemIds(itemIds).stream()
+                .collect(groupingBy(CommentDto::getItemId));
     }
 }
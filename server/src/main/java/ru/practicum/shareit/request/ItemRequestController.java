@@ -2,6 +2,7 @@ package ru.practicum.shareit.request;
 
 import java.util.List;
 
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -12,6 +13,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.common.Cursor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestPostDto;
 import ru.practicum.shareit.request.service.ItemRequestService;
@@ -42,6 +44,14 @@ public class ItemRequestController {
         return itemRequestService.getAll(userId, from, size);
     }
 
+    @GetMapping(path = "/all", params = "cursor")
+    public ResponseEntity<List<ItemRequestDto>> getAllAfter(@RequestHeader(X_SHARER_USER_ID_HEADER) long userId,
+                                                            @RequestParam String cursor,
+                                                            @RequestParam(defaultValue = "10") Integer size) {
+        return itemRequestService.getAllAfter(userId, Cursor.decode(cursor), size)
+                .toResponseEntity();
+    }
+
     @PostMapping
     public ItemRequestDto add(@RequestHeader(X_SHARER_USER_ID_HEADER) long userId,
                               @RequestBody ItemRequestPostDto itemRequestPostDto) {
@@ -1,14 +1,28 @@
 package ru.practicum.shareit.request;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
 
     List<ItemRequest> findAllByRequestorIdOrderByCreatedDesc(Long userId);
 
-    Page<ItemRequest> findAllByRequestorIdIsNotOrderByCreatedDesc(Long userId, Pageable pageable);
+    Slice<ItemRequest> findAllByRequestorIdIsNotOrderByCreatedDesc(Long userId, Pageable pageable);
+
+    List<ItemRequest> findAllByRequestorIdIsNotOrderByCreatedDescIdDesc(Long userId, Pageable pageable);
+
+    @Query("select r from ItemRequest r " +
+            "where r.requestorId <> :userId " +
+            "  and (r.created < :created or (r.created = :created and r.id < :id)) " +
+            "order by r.created desc, r.id desc")
+    List<ItemRequest> findAllByRequestorIdIsNotAfter(@Param("userId") Long userId,
+                                                     @Param("created") LocalDateTime created,
+                                                     @Param("id") Long id,
+                                                     Pageable pageable);
 }
@@ -2,6 +2,8 @@ package ru.practicum.shareit.request.service;
 
 import java.util.List;
 
+import ru.practicum.shareit.common.Cursor;
+import ru.practicum.shareit.common.CursorPage;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestPostDto;
 
@@ -11,6 +13,8 @@ public interface ItemRequestService {
 
     List<ItemRequestDto> getAll(long userId, Integer offset, Integer size);
 
+    CursorPage<ItemRequestDto> getAllAfter(long userId, Cursor cursor, int size);
+
     ItemRequestDto getById(long userId, long requestId);
 
     ItemRequestDto add(long userId, ItemRequestPostDto itemRequestPostDto);
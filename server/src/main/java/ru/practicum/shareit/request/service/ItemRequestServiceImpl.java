@@ -10,13 +10,17 @@ import static java.time.LocalDateTime.now;
 import static java.util.Collections.emptyList;
 import static java.util.stream.Collectors.toList;
 
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 
 import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.common.Cursor;
+import ru.practicum.shareit.common.CursorPage;
 import ru.practicum.shareit.common.CustomPageRequest;
+import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
@@ -63,6 +67,27 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         return addItemsToRequests(convertItemRequestsToItemRequestDtoList(itemRequestList));
     }
 
+    @Override
+    public CursorPage<ItemRequestDto> getAllAfter(long userId, Cursor cursor, int size) {
+        checkUserExists(userId);
+
+        Pageable pageable = PageRequest.of(0, CursorPage.fetchSize(size));
+        List<ItemRequest> itemRequests;
+
+        if (cursor == null) {
+            itemRequests = itemRequestRepository.findAllByRequestorIdIsNotOrderByCreatedDescIdDesc(userId, pageable);
+        } else if (cursor.getSortKey() != null) {
+            itemRequests = itemRequestRepository.findAllByRequestorIdIsNotAfter(userId, cursor.getSortKey(),
+                    cursor.getId(), pageable);
+        } else {
+            throw new BadRequestException(format("Invalid cursor: %s", cursor.encode()));
+        }
+
+        CursorPage<ItemRequest> page = CursorPage.of(itemRequests, size,
+                itemRequest -> Cursor.of(itemRequest.getCreated(), itemRequest.getId()));
+        return page.withContent(addItemsToRequests(convertItemRequestsToItemRequestDtoList(page.getContent())));
+    }
+
     @Override
     public ItemRequestDto getById(long userId, long requestId) {
         checkUserExists(userId);
@@ -12,7 +12,10 @@ import static org.apache.commons.lang3.StringUtils.isNoneBlank;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import ru.practicum.shareit.booking.conflict.BookingConflictIndex;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.cache.ItemViewCache;
+import ru.practicum.shareit.item.search.ItemSearchEngineFactory;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserDto;
 import ru.practicum.shareit.user.UserMapper;
@@ -26,6 +29,9 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final UserMapper userMapper;
+    private final ItemSearchEngineFactory searchEngineFactory;
+    private final ItemViewCache itemViewCache;
+    private final BookingConflictIndex conflictIndex;
 
     @Override
     public List<UserDto> findAll() {
@@ -63,8 +69,9 @@ public class UserServiceImpl implements UserService {
             user.setEmail(email);
         }
 
-        if (isNoneBlank(userDto.getName())) {
+        if (isNoneBlank(userDto.getName()) && !user.getName().equals(userDto.getName())) {
             user.setName(userDto.getName());
+            itemViewCache.evictAll();
         }
 
         return userMapper.toUserDto(user);
@@ -78,6 +85,9 @@ public class UserServiceImpl implements UserService {
         }
 
         userRepository.deleteById(id);
+        searchEngineFactory.getEngine().removeAllByOwnerId(id);
+        itemViewCache.evictAll();
+        conflictIndex.invalidateAll();
         log.info("User with id '{}' is successfully removed", id);
     }
 
@@ -0,0 +1,68 @@
+-- tables created before ids moved to pooled sequences still have identity columns
+ALTER TABLE users
+    ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE users
+    ALTER COLUMN id SET DEFAULT nextval('users_seq');
+ALTER TABLE requests
+    ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE requests
+    ALTER COLUMN id SET DEFAULT nextval('requests_seq');
+ALTER TABLE items
+    ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE items
+    ALTER COLUMN id SET DEFAULT nextval('items_seq');
+ALTER TABLE bookings
+    ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE bookings
+    ALTER COLUMN id SET DEFAULT nextval('bookings_seq');
+ALTER TABLE comments
+    ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE comments
+    ALTER COLUMN id SET DEFAULT nextval('comments_seq');
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS items_available_name_trgm_idx
+    ON items USING gin (upper(name) gin_trgm_ops)
+    WHERE is_available;
+
+CREATE INDEX IF NOT EXISTS items_available_description_trgm_idx
+    ON items USING gin (upper(description) gin_trgm_ops)
+    WHERE is_available;
+
+
+CREATE INDEX IF NOT EXISTS bookings_waiting_booker_start_date_idx
+    ON bookings (booker_id, start_date DESC, id DESC)
+    WHERE status = 'WAITING';
+
+CREATE INDEX IF NOT EXISTS bookings_waiting_item_start_date_idx
+    ON bookings (item_id, start_date DESC, id DESC)
+    WHERE status = 'WAITING';
+
+CREATE INDEX IF NOT EXISTS bookings_waiting_start_date_idx
+    ON bookings (start_date, id)
+    WHERE status = 'WAITING';
+
+CREATE INDEX IF NOT EXISTS bookings_approved_end_date_idx
+    ON bookings (end_date, start_date)
+    WHERE status = 'APPROVED';
+
+CREATE INDEX IF NOT EXISTS bookings_rejected_booker_start_date_idx
+    ON bookings (booker_id, start_date DESC, id DESC)
+    WHERE status = 'REJECTED';
+
+CREATE INDEX IF NOT EXISTS bookings_rejected_item_start_date_idx
+    ON bookings (item_id, start_date DESC, id DESC)
+    WHERE status = 'REJECTED';
+
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+DO '
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = ''bookings_approved_no_overlap'') THEN
+        ALTER TABLE bookings
+            ADD CONSTRAINT bookings_approved_no_overlap
+                EXCLUDE USING gist (item_id WITH =, tsrange(start_date, end_date) WITH &&)
+                WHERE (status = ''APPROVED'');
+    END IF;
+END';
@@ -1,13 +1,19 @@
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS requests_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS items_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS bookings_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS comments_seq START WITH 1 INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS users
 (
-    id    BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    id    BIGINT DEFAULT nextval('users_seq') PRIMARY KEY,
     name  VARCHAR(100) NOT NULL,
     email VARCHAR(100) NOT NULL UNIQUE
 );
 
 CREATE TABLE IF NOT EXISTS requests
 (
-    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    id           BIGINT DEFAULT nextval('requests_seq') PRIMARY KEY,
     description  VARCHAR(2000) NOT NULL,
     requestor_id BIGINT REFERENCES users (id) ON DELETE CASCADE,
     created      TIMESTAMP WITHOUT TIME ZONE
@@ -15,7 +21,7 @@ CREATE TABLE IF NOT EXISTS requests
 
 CREATE TABLE IF NOT EXISTS items
 (
-    id           BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    id           BIGINT DEFAULT nextval('items_seq') PRIMARY KEY,
     name         VARCHAR(200) NOT NULL,
     description  VARCHAR(2000),
     is_available BOOLEAN      NOT NULL,
@@ -25,7 +31,7 @@ CREATE TABLE IF NOT EXISTS items
 
 CREATE TABLE IF NOT EXISTS bookings
 (
-    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    id         BIGINT DEFAULT nextval('bookings_seq') PRIMARY KEY,
     start_date TIMESTAMP WITHOUT TIME ZONE,
     end_date   TIMESTAMP WITHOUT TIME ZONE,
     item_id    BIGINT REFERENCES items (id) ON DELETE CASCADE NOT NULL,
@@ -35,13 +41,27 @@ CREATE TABLE IF NOT EXISTS bookings
 
 CREATE TABLE IF NOT EXISTS comments
 (
-    id        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    id        BIGINT DEFAULT nextval('comments_seq') PRIMARY KEY,
     text      VARCHAR(200) NOT NULL,
     item_id   BIGINT REFERENCES items (id),
     author_id BIGINT REFERENCES users (id),
     created   TIMESTAMP WITHOUT TIME ZONE
 );
 
+CREATE INDEX IF NOT EXISTS items_owner_id_idx ON items (owner_id, id);
+CREATE INDEX IF NOT EXISTS items_request_id_idx ON items (request_id);
+
+CREATE INDEX IF NOT EXISTS bookings_booker_start_date_idx ON bookings (booker_id, start_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS bookings_booker_end_date_idx ON bookings (booker_id, end_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS bookings_item_start_date_idx ON bookings (item_id, start_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS bookings_item_end_date_idx ON bookings (item_id, end_date DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS comments_item_id_idx ON comments (item_id);
+CREATE INDEX IF NOT EXISTS comments_author_id_idx ON comments (author_id);
+
+CREATE INDEX IF NOT EXISTS requests_requestor_created_idx ON requests (requestor_id, created DESC, id DESC);
+CREATE INDEX IF NOT EXISTS requests_created_idx ON requests (created DESC, id DESC);
+
 DELETE
 FROM comments;
 DELETE
@@ -53,13 +73,8 @@ from requests;
 DELETE
 from users;
 
-ALTER TABLE users
-    ALTER COLUMN id RESTART WITH 1;
-ALTER TABLE requests
-    ALTER COLUMN id RESTART WITH 1;
-ALTER TABLE items
-    ALTER COLUMN id RESTART WITH 1;
-ALTER TABLE bookings
-    ALTER COLUMN id RESTART WITH 1;
-ALTER TABLE comments
-    ALTER COLUMN id RESTART WITH 1;
\ No newline at end of file
+ALTER SEQUENCE users_seq RESTART WITH 1;
+ALTER SEQUENCE requests_seq RESTART WITH 1;
+ALTER SEQUENCE items_seq RESTART WITH 1;
+ALTER SEQUENCE bookings_seq RESTART WITH 1;
+ALTER SEQUENCE comments_seq RESTART WITH 1;
@@ -0,0 +1,191 @@
+package ru.practicum.shareit;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.shareit.booking.BookingQuery;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.stratagy.AllStateStrategy;
+import ru.practicum.shareit.booking.stratagy.BookingStateFetchStrategy;
+import ru.practicum.shareit.booking.stratagy.CurrentStateStrategy;
+import ru.practicum.shareit.booking.stratagy.FutureStateStrategy;
+import ru.practicum.shareit.booking.stratagy.PastStateStrategy;
+import ru.practicum.shareit.booking.stratagy.RejectedStateStrategy;
+import ru.practicum.shareit.booking.stratagy.WaitingStateStrategy;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import static ru.practicum.shareit.booking.BookingRole.BOOKER;
+import static ru.practicum.shareit.booking.BookingRole.OWNER;
+import static ru.practicum.shareit.common.CustomPageRequest.of;
+
+/**
+ * Replays the hot repository paths the way production traffic does, with varying users, instants and
+ * IN-list lengths, and checks that Hibernate compiles each of them once and sends a bounded set of SQL
+ * strings, so the JDBC driver can keep them as server-side prepared statements. The plan cache hits, misses and
+ * hit rate of every hot path are logged on each run.
+ */
+@AutoConfigureTestDatabase
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "ru.practicum.shareit.QueryPlanCacheTest$RecordingStatementInspector")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Slf4j
+public class QueryPlanCacheTest {
+
+    private static final int MAX_IN_LIST_LENGTH = 100;
+    // lengths 1..100 are padded to 1, 2, 4, ..., 128
+    private static final int PADDED_IN_LIST_SHAPES = 8;
+
+    private final BookingRepository bookingRepository;
+    private final ItemRepository itemRepository;
+    private final CommentRepository commentRepository;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        RecordingStatementInspector.STATEMENTS.clear();
+    }
+
+    @Test
+    void inListQueries_whenListLengthsVary_thenSqlShapesArePaddedToPowersOfTwo() {
+        var now = LocalDateTime.now();
+
+        assertThat(distinctStatements(length -> itemRepository.findAllByRequestIdIn(ids(length))))
+                .as("items by requests")
+                .isEqualTo(PADDED_IN_LIST_SHAPES);
+        assertThat(distinctStatements(length -> commentRepository.findAllByItemIds(ids(length))))
+                .as("comments by items")
+                .isEqualTo(PADDED_IN_LIST_SHAPES);
+        assertThat(distinctStatements(length -> bookingRepository.findNextApprovedByItemIds(ids(length), now)))
+                .as("next approved bookings by items")
+                .isEqualTo(PADDED_IN_LIST_SHAPES);
+    }
+
+    @Test
+    void hotPaths_whenReplayed_thenQueryPlanCacheHitRateIsNearlyOne() {
+        Map<String, HotPath> hotPaths = hotPaths();
+        // one list per padded length is enough to compile every shape
+        int[] warmUpLengths = {1, 2, 4, 8, 16, 32, 64, MAX_IN_LIST_LENGTH};
+        hotPaths.values().forEach(hotPath -> replay(hotPath, 1, warmUpLengths));
+        log.info("Plan cache warm-up: {} misses", statistics.getQueryPlanCacheMissCount());
+
+        int[] lengths = IntStream.rangeClosed(1, MAX_IN_LIST_LENGTH).toArray();
+        long totalHits = 0;
+        long totalMisses = 0;
+        for (Map.Entry<String, HotPath> hotPath : hotPaths.entrySet()) {
+            statistics.clear();
+            replay(hotPath.getValue(), 1_000, lengths);
+
+            long hits = statistics.getQueryPlanCacheHitCount();
+            long misses = statistics.getQueryPlanCacheMissCount();
+            log.info("Plan cache, {}: {} hits, {} misses, hit rate {}", hotPath.getKey(), hits, misses,
+                    hitRate(hits, misses));
+            assertThat(misses).as("plan cache misses of %s", hotPath.getKey()).isZero();
+            assertThat(hits).as("plan cache hits of %s", hotPath.getKey()).isPositive();
+            totalHits += hits;
+            totalMisses += misses;
+        }
+        log.info("Plan cache, all hot paths: {} hits, {} misses, hit rate {}", totalHits, totalMisses,
+                hitRate(totalHits, totalMisses));
+    }
+
+    private Map<String, HotPath> hotPaths() {
+        var strategies = new BookingStateFetchStrategy[]{new AllStateStrategy(), new CurrentStateStrategy(),
+                new FutureStateStrategy(), new PastStateStrategy(), new RejectedStateStrategy(),
+                new WaitingStateStrategy()};
+
+        Map<String, HotPath> hotPaths = new LinkedHashMap<>();
+        hotPaths.put("booking pages", (userId, now, page, inListLengths) -> {
+            for (BookingStateFetchStrategy strategy : strategies) {
+                bookingRepository.findPage(BookingQuery.of(BOOKER, userId, strategy, now), of(page, 10));
+                bookingRepository.findPage(BookingQuery.of(OWNER, userId, strategy, now), of(page, 10));
+            }
+        });
+        hotPaths.put("booking counts", (userId, now, page, inListLengths) -> {
+            for (BookingStateFetchStrategy strategy : strategies) {
+                bookingRepository.count(BookingQuery.of(BOOKER, userId, strategy, now));
+                bookingRepository.count(BookingQuery.of(OWNER, userId, strategy, now));
+            }
+        });
+        hotPaths.put("items by requests", (userId, now, page, inListLengths) -> {
+            for (int length : inListLengths) {
+                itemRepository.findAllByRequestIdIn(ids(length));
+            }
+        });
+        hotPaths.put("comments by items", (userId, now, page, inListLengths) -> {
+            for (int length : inListLengths) {
+                commentRepository.findAllByItemIds(ids(length));
+            }
+        });
+        hotPaths.put("items by owner", (userId, now, page, inListLengths) ->
+                itemRepository.findByOwnerIdOrderByIdAsc(userId, of(0, 10)));
+        return hotPaths;
+    }
+
+    private static void replay(HotPath hotPath, long userOffset, int[] inListLengths) {
+        for (int i = 0; i < 10; i++) {
+            hotPath.replay(userOffset + i, LocalDateTime.now().plusMinutes(i), i, inListLengths);
+        }
+    }
+
+    private static String hitRate(long hits, long misses) {
+        return String.format(Locale.ROOT, "%.3f", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+    }
+
+    private long distinctStatements(IntFunction<?> query) {
+        RecordingStatementInspector.STATEMENTS.clear();
+        for (int length = 1; length <= MAX_IN_LIST_LENGTH; length++) {
+            query.apply(length);
+        }
+        return RecordingStatementInspector.STATEMENTS.size();
+    }
+
+    private static List<Long> ids(int length) {
+        return LongStream.rangeClosed(1, length).boxed().collect(Collectors.toList());
+    }
+
+    private interface HotPath {
+
+        void replay(long userId, LocalDateTime now, int page, int[] inListLengths);
+    }
+
+    public static class RecordingStatementInspector implements StatementInspector {
+
+        static final Set<String> STATEMENTS = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
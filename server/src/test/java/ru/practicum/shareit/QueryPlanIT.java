@@ -0,0 +1,306 @@
+package ru.practicum.shareit;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.data.domain.Sort.Direction.DESC;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import ru.practicum.shareit.booking.BookingQuery;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.stratagy.AllStateStrategy;
+import ru.practicum.shareit.booking.stratagy.BookingStateFetchStrategy;
+import ru.practicum.shareit.booking.stratagy.CurrentStateStrategy;
+import ru.practicum.shareit.booking.stratagy.FutureStateStrategy;
+import ru.practicum.shareit.booking.stratagy.PastStateStrategy;
+import ru.practicum.shareit.booking.stratagy.RejectedStateStrategy;
+import ru.practicum.shareit.booking.stratagy.WaitingStateStrategy;
+import ru.practicum.shareit.common.Cursor;
+import ru.practicum.shareit.common.CustomPageRequest;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.ItemRequestRepository;
+
+import static ru.practicum.shareit.booking.BookingRole.BOOKER;
+import static ru.practicum.shareit.booking.BookingRole.OWNER;
+
+/**
+ * Explains every repository query against a seeded PostgreSQL database and fails on a sequential scan.
+ * Runs only when {@code SHAREIT_EXPLAIN_DB_URL} points to a disposable database, e.g.
+ * {@code SHAREIT_EXPLAIN_DB_URL=jdbc:postgresql://localhost:5432/shareit_plans mvn test -Dtest=QueryPlanIT}.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfEnvironmentVariable(named = "SHAREIT_EXPLAIN_DB_URL", matches = ".+")
+@Import(QueryPlanIT.ExplainConfig.class)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class QueryPlanIT {
+
+    private static final int USERS = 2_000;
+    private static final int REQUESTS = 5_000;
+    private static final int ITEMS = 20_000;
+    private static final int BOOKINGS = 100_000;
+    private static final int COMMENTS = 40_000;
+
+    private static final long USER_ID = 5L;
+    private static final List<Long> ITEM_IDS = List.of(4L, 2004L, 4004L, 6004L);
+
+    private static final List<QueryPlan> PLANS = new ArrayList<>();
+    private static volatile boolean explaining;
+
+    private final BookingRepository bookingRepository;
+    private final ItemRepository itemRepository;
+    private final CommentRepository commentRepository;
+    private final ItemRequestRepository itemRequestRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("SHAREIT_EXPLAIN_DB_URL"));
+        registry.add("spring.datasource.username",
+                () -> System.getenv().getOrDefault("SHAREIT_EXPLAIN_DB_USERNAME", "postgres"));
+        registry.add("spring.datasource.password",
+                () -> System.getenv().getOrDefault("SHAREIT_EXPLAIN_DB_PASSWORD", "postgres"));
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.sql.init.schema-locations", () -> "classpath:schema.sql,classpath:schema-postgresql.sql");
+    }
+
+    @Test
+    void repositoryQueries_whenDatasetIsSeeded_thenNoSequentialScanIsPlanned() {
+        seed();
+        var now = LocalDateTime.now();
+
+        List<BookingStateFetchStrategy> strategies = List.of(
+                new AllStateStrategy(),
+                new CurrentStateStrategy(),
+                new FutureStateStrategy(),
+                new PastStateStrategy(),
+                new RejectedStateStrategy(),
+                new WaitingStateStrategy());
+        for (BookingStateFetchStrategy strategy : strategies) {
+            var byBooker = BookingQuery.of(BOOKER, USER_ID, strategy, now);
+            var byOwner = BookingQuery.of(OWNER, USER_ID, strategy, now);
+            var cursor = Cursor.of(now, Long.MAX_VALUE);
+
+            assertNoSequentialScan(strategy.getStrategyState() + " by booker",
+                    () -> bookingRepository.findPage(byBooker, CustomPageRequest.of(0, 10)));
+            assertNoSequentialScan(strategy.getStrategyState() + " by owner",
+                    () -> bookingRepository.findPage(byOwner, CustomPageRequest.of(0, 10)));
+            assertNoSequentialScan(strategy.getStrategyState() + " by booker after cursor",
+                    () -> bookingRepository.findAllAfter(byBooker, cursor, 11));
+            assertNoSequentialScan(strategy.getStrategyState() + " by owner after cursor",
+                    () -> bookingRepository.findAllAfter(byOwner, cursor, 11));
+            assertNoSequentialScan(strategy.getStrategyState() + " count by booker",
+                    () -> bookingRepository.count(byBooker));
+            assertNoSequentialScan(strategy.getStrategyState() + " count by owner",
+                    () -> bookingRepository.count(byOwner));
+        }
+
+        assertNoSequentialScan("next approved bookings",
+                () -> bookingRepository.findNextApprovedByItemIds(ITEM_IDS, now));
+        assertNoSequentialScan("last approved bookings",
+                () -> bookingRepository.findLastApprovedByItemIds(ITEM_IDS, now));
+        assertNoSequentialScan("next approved boundary",
+                () -> bookingRepository.findNextApprovedBoundaryByItemId(ITEM_IDS.get(0), now));
+        assertNoSequentialScan("stale waiting bookings",
+                () -> bookingRepository.findStaleWaitingIds(now, PageRequest.of(0, 500)));
+        assertNoSequentialScan("finished bookings of item by booker",
+                () -> bookingRepository.findAllBookingsByItemIdAndBookerIdAndEndDateBeforeAndStatusOrderByStartDateDesc(
+                        ITEM_IDS.get(0), USER_ID, now, Status.APPROVED));
+
+        assertNoSequentialScan("items by owner",
+                () -> itemRepository.findByOwnerIdOrderByIdAsc(USER_ID, CustomPageRequest.of(0, 10)));
+        assertNoSequentialScan("items by owner after cursor",
+                () -> itemRepository.findByOwnerIdAndIdGreaterThanOrderByIdAsc(USER_ID, 0L, PageRequest.of(0, 11)));
+        assertNoSequentialScan("items by requests",
+                () -> itemRepository.findAllByRequestIdIn(List.of(1L, 2L, 3L)));
+        assertNoSequentialScan("ranked item search",
+                () -> itemRepository.searchRanked("%RARE DRILL%", "rare drill", PageRequest.of(0, 10)));
+        assertNoSequentialScan("ranked item search available for period",
+                () -> itemRepository.searchRankedAvailable("%RARE DRILL%", "rare drill", now.plusDays(3),
+                        now.plusDays(5), PageRequest.of(0, 10)));
+        assertNoSequentialScan("items booked for period",
+                () -> bookingRepository.findApprovedItemIdsOverlapping(ITEM_IDS, now.plusDays(3), now.plusDays(5)));
+        assertNoSequentialScan("comments by items",
+                () -> commentRepository.findAllByItemIds(ITEM_IDS));
+
+        assertNoSequentialScan("own requests",
+                () -> itemRequestRepository.findAllByRequestorIdOrderByCreatedDesc(USER_ID));
+        assertNoSequentialScan("requests of others",
+                () -> itemRequestRepository.findAllByRequestorIdIsNotOrderByCreatedDesc(USER_ID,
+                        CustomPageRequest.of(0, 10)));
+        assertNoSequentialScan("requests of others after cursor",
+                () -> itemRequestRepository.findAllByRequestorIdIsNotAfter(USER_ID, now, Long.MAX_VALUE,
+                        PageRequest.of(0, 11, DESC, "created", "id")));
+    }
+
+    private void assertNoSequentialScan(String description, Runnable query) {
+        PLANS.clear();
+        explaining = true;
+        try {
+            query.run();
+        } finally {
+            explaining = false;
+        }
+
+        assertThat(PLANS).as(description).isNotEmpty();
+        for (QueryPlan plan : PLANS) {
+            assertThat(plan.getPlan())
+                    .as("%s%n%s%n%s", description, plan.getSql(), plan.getPlan())
+                    .doesNotContain("Seq Scan");
+        }
+    }
+
+    private void seed() {
+        // ids are set explicitly: the pooled sequences hand out 1, 51, 101...
+        jdbcTemplate.update("insert into users (id, name, email) " +
+                "select g, 'User ' || g, 'user' || g || '@example.com' from generate_series(1, ?) g", USERS);
+        jdbcTemplate.update("insert into requests (id, description, requestor_id, created) " +
+                "select g, 'Request ' || g, 1 + g % ?, now() - g * interval '1 minute' " +
+                "from generate_series(1, ?) g", USERS, REQUESTS);
+        jdbcTemplate.update("insert into items (id, name, description, is_available, owner_id, request_id) " +
+                "select g, 'Item ' || g || case when g % 500 = 0 then ' rare drill' else '' end, " +
+                "       'Description of item ' || g || ', in good condition, pick up in the evening', " +
+                "       g % 10 <> 0, 1 + g % ?, " +
+                "       case when g % 4 = 0 then 1 + g % ? end " +
+                "from generate_series(1, ?) g", USERS, REQUESTS, ITEMS);
+        // the k-th booking of an item gets its own ten-day slot, so approved bookings never overlap
+        jdbcTemplate.update("insert into bookings (start_date, end_date, item_id, booker_id, status) " +
+                "select s.start_date, s.start_date + interval '3 days', s.item_id, s.booker_id, s.status " +
+                "from (select now() + ((g / ?) * 10 - 25 + g % 7) * interval '1 day' as start_date, " +
+                "             1 + g % ? as item_id, 1 + (g * 7) % ? as booker_id, " +
+                "             (array['WAITING', 'APPROVED', 'REJECTED', 'APPROVED', 'APPROVED'])[1 + (g + g / ?) % 5] " +
+                "                 as status " +
+                "      from generate_series(0, ? - 1) g) s", ITEMS, ITEMS, USERS, ITEMS, BOOKINGS);
+        jdbcTemplate.update("insert into comments (text, item_id, author_id, created) " +
+                "select 'Comment ' || g, 1 + g % ?, 1 + g % ?, now() from generate_series(1, ?) g",
+                ITEMS, USERS, COMMENTS);
+        // autovacuum merges fresh rows into the trigram indexes of a live database; the seed is never vacuumed
+        jdbcTemplate.queryForList("select gin_clean_pending_list(indexrelid::regclass) from pg_index " +
+                "where indrelid = 'items'::regclass and indexrelid::regclass::text like '%trgm%'");
+        jdbcTemplate.execute("analyze users, requests, items, bookings, comments");
+    }
+
+    @Value
+    static class QueryPlan {
+        String sql;
+        String plan;
+    }
+
+    @TestConfiguration
+    static class ExplainConfig {
+
+        @Bean
+        static BeanPostProcessor explainingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource ? new ExplainingDataSource((DataSource) bean) : bean;
+                }
+            };
+        }
+    }
+
+    /**
+     * Explains each select with the parameters it is executed with, on the same connection, so the plan sees
+     * uncommitted seed data and the exact values a custom plan is built for.
+     */
+    static class ExplainingDataSource extends DelegatingDataSource {
+
+        ExplainingDataSource(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return explaining(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return explaining(super.getConnection(username, password));
+        }
+
+        private static Connection explaining(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(QueryPlanIT.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        Object result = invoke(connection, method, args);
+                        if (method.getName().equals("prepareStatement") && args[0] instanceof String) {
+                            return explaining(connection, (PreparedStatement) result, (String) args[0]);
+                        }
+                        return result;
+                    });
+        }
+
+        private static PreparedStatement explaining(Connection connection, PreparedStatement statement, String sql) {
+            List<Object[]> bindings = new ArrayList<>();
+            List<Method> setters = new ArrayList<>();
+
+            return (PreparedStatement) Proxy.newProxyInstance(QueryPlanIT.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                        if (method.getName().startsWith("set") && args != null && args.length >= 2
+                                && args[0] instanceof Integer) {
+                            setters.add(method);
+                            bindings.add(args);
+                        } else if (method.getName().equals("executeQuery") && explaining
+                                && sql.trim().toLowerCase().startsWith("select")) {
+                            PLANS.add(new QueryPlan(sql, explain(connection, sql, setters, bindings)));
+                        }
+                        return invoke(statement, method, args);
+                    });
+        }
+
+        private static String explain(Connection connection, String sql, List<Method> setters,
+                                      List<Object[]> bindings) throws Exception {
+            try (PreparedStatement explain = connection.prepareStatement("explain " + sql)) {
+                for (int i = 0; i < setters.size(); i++) {
+                    setters.get(i).invoke(explain, bindings.get(i));
+                }
+
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rows = explain.executeQuery()) {
+                    while (rows.next()) {
+                        plan.append(rows.getString(1)).append(System.lineSeparator());
+                    }
+                }
+                return plan.toString();
+            }
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
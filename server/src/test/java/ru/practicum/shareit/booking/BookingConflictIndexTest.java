@@ -0,0 +1,278 @@
+package ru.practicum.shareit.booking;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ru.practicum.shareit.booking.conflict.AvailabilityRange;
+import ru.practicum.shareit.booking.conflict.BookedInterval;
+import ru.practicum.shareit.booking.conflict.BookingConflictIndex;
+import ru.practicum.shareit.booking.conflict.HourBitmap;
+import ru.practicum.shareit.booking.conflict.IntervalTree;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.item.model.Item;
+
+public class BookingConflictIndexTest {
+
+    private static final long ITEM_ID = 1L;
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    private BookingRepository bookingRepository;
+    private BookingConflictIndex conflictIndex;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+        when(bookingRepository.findApprovedIntervalsByItemId(eq(ITEM_ID), any()))
+                .thenReturn(List.of(new BookedInterval(100L, hour(10), hour(20))));
+        conflictIndex = new BookingConflictIndex(bookingRepository, 100, Duration.ofHours(1), Duration.ofDays(1),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void findOverlap_whenIntervalsAreRandom_thenSameAnswerAsFullScan() {
+        var random = new Random(42);
+        var tree = new IntervalTree();
+        List<BookedInterval> intervals = new ArrayList<>();
+
+        for (long id = 1; id <= 2_000; id++) {
+            int start = random.nextInt(10_000);
+            var interval = new BookedInterval(id, hour(start), hour(start + 1 + random.nextInt(50)));
+            tree.insert(interval);
+            intervals.add(interval);
+
+            if (random.nextInt(4) == 0) {
+                var removed = intervals.remove(random.nextInt(intervals.size()));
+                assertThat(tree.remove(removed)).isTrue();
+            }
+        }
+        assertThat(tree.size()).isEqualTo(intervals.size());
+
+        for (int i = 0; i < 2_000; i++) {
+            int start = random.nextInt(10_000);
+            var queryStart = hour(start);
+            var queryEnd = hour(start + 1 + random.nextInt(20));
+
+            var found = tree.findOverlap(queryStart, queryEnd);
+            boolean expected = intervals.stream()
+                    .anyMatch(interval -> interval.overlaps(queryStart, queryEnd));
+
+            assertThat(found.isPresent()).isEqualTo(expected);
+            found.ifPresent(interval -> assertThat(interval.overlaps(queryStart, queryEnd)).isTrue());
+        }
+    }
+
+    @Test
+    void ranges_whenBitmapIsMarkedRandomly_thenSameAnswerAsHourByHourScan() {
+        var random = new Random(7);
+        boolean[] busy = new boolean[24 * 90];
+        // the last 60 days are past the horizon and read from the array
+        var bitmap = new HourBitmap(BASE, Duration.ofDays(30),
+                hour -> busy[(int) Duration.between(BASE, hour).toHours()]);
+
+        for (int i = 0; i < 300; i++) {
+            int start = random.nextInt(busy.length - 10);
+            int length = 1 + random.nextInt(10);
+            boolean mark = random.nextInt(3) > 0;
+            if (mark) {
+                bitmap.mark(hour(start), hour(start + length));
+            } else {
+                bitmap.clear(hour(start), hour(start + length));
+            }
+            for (int h = start; h < start + length; h++) {
+                busy[h] = mark;
+            }
+        }
+
+        var ranges = bitmap.ranges(hour(0), hour(busy.length));
+
+        assertThat(ranges.get(0).getStart()).isEqualTo(hour(0));
+        assertThat(ranges.get(ranges.size() - 1).getEnd()).isEqualTo(hour(busy.length));
+        for (int i = 0; i < ranges.size(); i++) {
+            AvailabilityRange range = ranges.get(i);
+            if (i > 0) {
+                assertThat(range.getStart()).isEqualTo(ranges.get(i - 1).getEnd());
+                assertThat(range.isAvailable()).isNotEqualTo(ranges.get(i - 1).isAvailable());
+            }
+            for (var h = range.getStart(); h.isBefore(range.getEnd()); h = h.plusHours(1)) {
+                assertThat(busy[(int) Duration.between(BASE, h).toHours()]).isEqualTo(!range.isAvailable());
+            }
+        }
+    }
+
+    @Test
+    void getAvailability_whenApprovedBookingIsReleased_thenSharedHourStaysBusy() {
+        conflictIndex.reserve(booking(101L, 20, 22));
+        var halfPast = BASE.plusHours(22).plusMinutes(30);
+        conflictIndex.reserve(Booking.builder()
+                .id(102L)
+                .startDate(halfPast)
+                .endDate(halfPast.plusHours(2))
+                .item(Item.builder()
+                        .id(ITEM_ID)
+                        .build())
+                .build());
+
+        assertThat(conflictIndex.getAvailability(ITEM_ID, hour(0), hour(30))).containsExactly(
+                new AvailabilityRange(hour(0), hour(10), true),
+                new AvailabilityRange(hour(10), hour(25), false),
+                new AvailabilityRange(hour(25), hour(30), true));
+
+        conflictIndex.release(booking(101L, 20, 22));
+
+        assertThat(conflictIndex.getAvailability(ITEM_ID, hour(0), hour(30))).containsExactly(
+                new AvailabilityRange(hour(0), hour(10), true),
+                new AvailabilityRange(hour(10), hour(20), false),
+                new AvailabilityRange(hour(20), hour(22), true),
+                new AvailabilityRange(hour(22), hour(25), false),
+                new AvailabilityRange(hour(25), hour(30), true));
+        verify(bookingRepository, times(1)).findApprovedIntervalsByItemId(eq(ITEM_ID), any());
+    }
+
+    @Test
+    void reserve_whenBookingEndsFarInTheFuture_thenHoursPastTheHorizonAreAnsweredFromIntervals() {
+        var farEnd = LocalDateTime.of(9999, 12, 31, 0, 0);
+        conflictIndex.reserve(Booking.builder()
+                .id(101L)
+                .startDate(hour(30))
+                .endDate(farEnd)
+                .item(Item.builder()
+                        .id(ITEM_ID)
+                        .build())
+                .build());
+
+        assertThat(conflictIndex.getAvailability(ITEM_ID, hour(0), hour(40))).containsExactly(
+                new AvailabilityRange(hour(0), hour(10), true),
+                new AvailabilityRange(hour(10), hour(20), false),
+                new AvailabilityRange(hour(20), hour(30), true),
+                new AvailabilityRange(hour(30), hour(40), false));
+        assertThat(conflictIndex.getAvailability(ITEM_ID, farEnd.minusHours(2), farEnd.plusHours(2))).containsExactly(
+                new AvailabilityRange(farEnd.minusHours(2), farEnd, false),
+                new AvailabilityRange(farEnd, farEnd.plusHours(2), true));
+        assertThrows(ConflictException.class,
+                () -> conflictIndex.checkAvailable(ITEM_ID, farEnd.minusDays(1), farEnd.plusDays(1)));
+    }
+
+    @Test
+    void checkAvailable_whenIntervalOverlapsApprovedBooking_thenThrowConflictException() {
+        assertThrows(ConflictException.class, () -> conflictIndex.checkAvailable(ITEM_ID, hour(15), hour(25)));
+        assertThrows(ConflictException.class, () -> conflictIndex.checkAvailable(ITEM_ID, hour(5), hour(11)));
+        assertDoesNotThrow(() -> conflictIndex.checkAvailable(ITEM_ID, hour(20), hour(30)));
+        assertDoesNotThrow(() -> conflictIndex.checkAvailable(ITEM_ID, hour(0), hour(10)));
+
+        verify(bookingRepository, times(1)).findApprovedIntervalsByItemId(eq(ITEM_ID), any());
+    }
+
+    @Test
+    void getAvailability_whenScheduleIsReadContinuously_thenItIsRebuiltAfterExpireAfterWrite() throws Exception {
+        conflictIndex = new BookingConflictIndex(bookingRepository, 100, Duration.ofHours(1), Duration.ofMillis(100),
+                new SimpleMeterRegistry());
+        var captor = ArgumentCaptor.forClass(LocalDateTime.class);
+
+        for (int i = 0; i < 30; i++) {
+            conflictIndex.getAvailability(ITEM_ID, hour(0), hour(30));
+            Thread.sleep(10);
+        }
+
+        verify(bookingRepository, atLeast(2)).findApprovedIntervalsByItemId(eq(ITEM_ID), captor.capture());
+        List<LocalDateTime> origins = captor.getAllValues();
+        assertThat(origins.get(origins.size() - 1)).isAfter(origins.get(0));
+    }
+
+    @Test
+    void release_whenApprovedBookingIsRejected_thenIntervalIsFreeAgain() {
+        var booking = booking(100L, 10, 20);
+        assertThrows(ConflictException.class, () -> conflictIndex.checkAvailable(ITEM_ID, hour(12), hour(18)));
+
+        conflictIndex.release(booking);
+
+        assertDoesNotThrow(() -> conflictIndex.reserve(booking(101L, 12, 18)));
+        assertThrows(ConflictException.class, () -> conflictIndex.checkAvailable(ITEM_ID, hour(15), hour(16)));
+    }
+
+    @Test
+    void reserve_whenTransactionRollsBack_thenReservationIsDropped() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            conflictIndex.reserve(booking(101L, 30, 40));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization ->
+                            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertDoesNotThrow(() -> conflictIndex.checkAvailable(ITEM_ID, hour(30), hour(40)));
+    }
+
+    @Test
+    void reserve_whenThreadsBookSameIntervalAtOnce_thenOnlyOneSucceeds() throws Exception {
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+
+        for (int i = 0; i < threads; i++) {
+            var booking = booking(200L + i, 50 + i % 3, 60 + i % 3);
+            results.add(executor.submit(() -> {
+                start.await();
+                try {
+                    conflictIndex.reserve(booking);
+                    return true;
+                } catch (ConflictException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+
+        int reserved = 0;
+        for (Future<Boolean> result : results) {
+            reserved += result.get(10, TimeUnit.SECONDS) ? 1 : 0;
+        }
+        executor.shutdown();
+
+        assertThat(reserved).isEqualTo(1);
+    }
+
+    private static Booking booking(long id, int startHour, int endHour) {
+        return Booking.builder()
+                .id(id)
+                .startDate(hour(startHour))
+                .endDate(hour(endHour))
+                .item(Item.builder()
+                        .id(ITEM_ID)
+                        .build())
+                .build();
+    }
+
+    private static LocalDateTime hour(int hour) {
+        return BASE.plusHours(hour);
+    }
+}
@@ -2,6 +2,7 @@ package ru.practicum.shareit.booking;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,21 +17,29 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import ru.practicum.shareit.booking.dto.BookingCountDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingPostDto;
 import ru.practicum.shareit.booking.model.State;
 import ru.practicum.shareit.booking.model.Status;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.common.Cursor;
+import ru.practicum.shareit.common.CursorPage;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
@@ -195,4 +204,99 @@ class BookingControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().json(objectMapper.writeValueAsString(List.of(bookingDtoNew))));
     }
+
+    @Test
+    void getAllBookingsByBookerIdAfter_whenNextPageExists_thenReturnedNextCursorHeader() throws Exception {
+        var cursor = Cursor.of(bookingDtoNew.getEnd(), bookingDtoNew.getId());
+
+        when(bookingService.findAllByBookerIdAfter(any(), anyLong(), any(), anyInt()))
+                .thenReturn(new CursorPage<>(List.of(bookingDtoNew), cursor));
+
+        mockMvc.perform(get("/bookings")
+                        .header(X_SHARER_USER_ID_HEADER, booker.getId())
+                        .param("state", State.ALL.name())
+                        .param("cursor", "")
+                        .param("size", "1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(Cursor.NEXT_CURSOR_HEADER, cursor.encode()))
+                .andExpect(content().json(objectMapper.writeValueAsString(List.of(bookingDtoNew))));
+
+        verify(bookingService).findAllByBookerIdAfter(State.ALL.name(), booker.getId(), null, 1);
+    }
+
+    @Test
+    void getAllBookingsByOwnerIdAfter_whenLastPage_thenNoNextCursorHeader() throws Exception {
+        var cursor = Cursor.of(bookingDtoNew.getEnd(), bookingDtoNew.getId());
+
+        when(bookingService.findAllByOwnerIdAfter(any(), anyLong(), any(), anyInt()))
+                .thenReturn(new CursorPage<>(List.of(bookingDtoNew), null));
+
+        mockMvc.perform(get("/bookings/owner")
+                        .header(X_SHARER_USER_ID_HEADER, owner.getId())
+                        .param("cursor", cursor.encode())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(Cursor.NEXT_CURSOR_HEADER))
+                .andExpect(content().json(objectMapper.writeValueAsString(List.of(bookingDtoNew))));
+
+        verify(bookingService).findAllByOwnerIdAfter(State.ALL.name(), owner.getId(), cursor, 10);
+    }
+
+    @Test
+    void getAllBookingsByBookerIdAfter_whenCursorIsInvalid_thenReturnedBadRequest() throws Exception {
+        mockMvc.perform(get("/bookings")
+                        .header(X_SHARER_USER_ID_HEADER, booker.getId())
+                        .param("cursor", "not a cursor")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void countBookingsByOwnerId() throws Exception {
+        var countDto = BookingCountDto.builder()
+                .state(State.WAITING)
+                .count(5L)
+                .build();
+
+        when(bookingService.countByOwnerId(State.WAITING.name(), owner.getId()))
+                .thenReturn(countDto);
+
+        mockMvc.perform(get("/bookings/owner/count")
+                        .header(X_SHARER_USER_ID_HEADER, owner.getId())
+                        .param("state", State.WAITING.name())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(countDto)));
+    }
+
+    @Test
+    void exportBookingsByOwnerId_whenServiceStreamsBookings_thenEachIsWrittenAsNdjsonLine() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<BookingDto> sink = invocation.getArgument(2);
+            sink.accept(bookingDtoNew);
+            sink.accept(bookingDtoNew);
+            return null;
+        }).when(bookingService).exportByOwnerId(eq(State.WAITING.name()), eq(owner.getId()), any());
+
+        String line = objectMapper.writeValueAsString(bookingDtoNew);
+        mockMvc.perform(get("/bookings/owner/export")
+                        .header(X_SHARER_USER_ID_HEADER, owner.getId())
+                        .param("state", State.WAITING.name()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(line + "\n" + line + "\n"));
+    }
+
+    @Test
+    void exportBookingsByOwnerId_whenStateIsUnknown_thenReturnedBadRequest() throws Exception {
+        doThrow(BadRequestException.class)
+                .when(bookingService).exportByOwnerId(eq("UNKNOWN"), eq(owner.getId()), any());
+
+        mockMvc.perform(get("/bookings/owner/export")
+                        .header(X_SHARER_USER_ID_HEADER, owner.getId())
+                        .param("state", "UNKNOWN"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
 }
@@ -0,0 +1,173 @@
+package ru.practicum.shareit.booking;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.stratagy.AllStateStrategy;
+import ru.practicum.shareit.booking.stratagy.BookingStateFetchStrategy;
+import ru.practicum.shareit.booking.stratagy.CurrentStateStrategy;
+import ru.practicum.shareit.booking.stratagy.FutureStateStrategy;
+import ru.practicum.shareit.booking.stratagy.PastStateStrategy;
+import ru.practicum.shareit.booking.stratagy.RejectedStateStrategy;
+import ru.practicum.shareit.booking.stratagy.WaitingStateStrategy;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import static ru.practicum.shareit.booking.BookingRole.BOOKER;
+import static ru.practicum.shareit.booking.BookingRole.OWNER;
+import static ru.practicum.shareit.common.CustomPageRequest.of;
+
+@AutoConfigureTestDatabase
+@DataJpaTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class BookingQueryCountTest {
+
+    private static final int BOOKINGS_PER_STATE = 6;
+    private static final List<BookingStateFetchStrategy> STRATEGIES = List.of(
+            new AllStateStrategy(),
+            new CurrentStateStrategy(),
+            new FutureStateStrategy(),
+            new PastStateStrategy(),
+            new RejectedStateStrategy(),
+            new WaitingStateStrategy());
+
+    private final BookingRepository bookingRepository;
+    private final ItemRepository itemRepository;
+    private final UserRepository userRepository;
+    private final TestEntityManager testEntityManager;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private User owner;
+    private User booker;
+    private int sequence;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        owner = userRepository.save(User.builder()
+                .name("Owner")
+                .email("owner@yandex.ru")
+                .build());
+        booker = userRepository.save(User.builder()
+                .name("Booker")
+                .email("booker@yandex.ru")
+                .build());
+
+        var now = LocalDateTime.now();
+        for (int i = 0; i < BOOKINGS_PER_STATE; i++) {
+            saveBooking(i, now.minusDays(10 + i), now.minusDays(5), Status.APPROVED);
+            saveBooking(i, now.minusDays(1 + i), now.plusDays(5), Status.APPROVED);
+            saveBooking(i, now.plusDays(1 + i), now.plusDays(5), Status.WAITING);
+            saveBooking(i, now.plusDays(1 + i), now.plusDays(5), Status.REJECTED);
+        }
+
+        testEntityManager.flush();
+    }
+
+    @Test
+    void strategies_whenPageIsLoadedAndMapped_thenOneStatementIsExecutedRegardlessOfPageSize() {
+        var now = LocalDateTime.now();
+
+        for (BookingStateFetchStrategy strategy : STRATEGIES) {
+            for (int size : new int[]{2, BOOKINGS_PER_STATE}) {
+                var byBooker = BookingQuery.of(BOOKER, booker.getId(), strategy, now);
+                var byOwner = BookingQuery.of(OWNER, owner.getId(), strategy, now);
+
+                assertThat(countStatements(() -> bookingRepository.findPage(byBooker, of(0, size)).getContent()))
+                        .as("%s by booker, size %d", strategy.getStrategyState(), size)
+                        .isEqualTo(1);
+                assertThat(countStatements(() -> bookingRepository.findPage(byOwner, of(0, size)).getContent()))
+                        .as("%s by owner, size %d", strategy.getStrategyState(), size)
+                        .isEqualTo(1);
+            }
+        }
+    }
+
+    @Test
+    void findPage_whenUsersAndInstantsDiffer_thenOneQueryShapePerState() {
+        var now = LocalDateTime.now();
+        var otherBooker = userRepository.save(User.builder()
+                .name("Other booker")
+                .email("other@yandex.ru")
+                .build());
+
+        for (BookingStateFetchStrategy strategy : STRATEGIES) {
+            statistics.clear();
+
+            bookingRepository.findPage(BookingQuery.of(BOOKER, booker.getId(), strategy, now), of(0, 2));
+            bookingRepository.findPage(BookingQuery.of(BOOKER, otherBooker.getId(), strategy, now.plusHours(1)),
+                    of(0, 2));
+
+            assertThat(statistics.getQueries())
+                    .as("%s by booker", strategy.getStrategyState())
+                    .hasSize(1);
+        }
+    }
+
+    @Test
+    void findAllAfter_whenPageIsLoadedAndMapped_thenOneStatementIsExecuted() {
+        var query = BookingQuery.of(OWNER, owner.getId(), new WaitingStateStrategy(), LocalDateTime.now());
+
+        assertThat(countStatements(() -> bookingRepository.findAllAfter(query, null, 20)))
+                .isEqualTo(1);
+    }
+
+    private long countStatements(Supplier<List<Booking>> page) {
+        testEntityManager.clear();
+        statistics.clear();
+
+        List<Booking> bookings = page.get();
+        assertThat(bookings).isNotEmpty();
+        bookings.forEach(booking -> {
+            booking.getItem().getName();
+            booking.getBooker().getName();
+        });
+
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void saveBooking(int index, LocalDateTime start, LocalDateTime end, Status status) {
+        Item item = itemRepository.save(Item.builder()
+                .name("Item " + index + " " + status)
+                .description("Description")
+                .available(true)
+                .ownerId(owner.getId())
+                .build());
+
+        User otherBooker = userRepository.save(User.builder()
+                .name("Booker " + sequence)
+                .email("booker" + sequence++ + "@yandex.ru")
+                .build());
+
+        bookingRepository.save(Booking.builder()
+                .startDate(start)
+                .endDate(end)
+                .item(item)
+                .booker(index % 2 == 0 ? booker : otherBooker)
+                .status(status)
+                .build());
+    }
+}
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.booking;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -13,19 +14,34 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.springframework.data.domain.Sort.Direction.DESC;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.booking.conflict.BookedInterval;
+import ru.practicum.shareit.booking.dto.BookingForItemView;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.stratagy.AllStateStrategy;
+import ru.practicum.shareit.booking.stratagy.BookingStateFetchStrategy;
+import ru.practicum.shareit.booking.stratagy.CurrentStateStrategy;
+import ru.practicum.shareit.booking.stratagy.FutureStateStrategy;
+import ru.practicum.shareit.booking.stratagy.PastStateStrategy;
+import ru.practicum.shareit.booking.stratagy.WaitingStateStrategy;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import static ru.practicum.shareit.booking.BookingRole.BOOKER;
+import static ru.practicum.shareit.booking.BookingRole.OWNER;
+import static ru.practicum.shareit.booking.BookingSpecifications.bookerIdIs;
+import static ru.practicum.shareit.booking.BookingSpecifications.itemOwnerIdIs;
+import static ru.practicum.shareit.booking.BookingSpecifications.statusIs;
+import static ru.practicum.shareit.booking.stratagy.BookingSortField.END_DATE;
 import static ru.practicum.shareit.common.CustomPageRequest.of;
 
 @AutoConfigureTestDatabase
@@ -36,6 +52,7 @@ public class BookingRepositoryTest {
     private final BookingRepository bookingRepository;
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
+    private final TestEntityManager testEntityManager;
 
     private Booking bookingInPastAndApprovedAndEndDateFiveDaysBefore;
     private Booking bookingInPastAndRejectedAndEndDateThreeDaysBefore;
@@ -142,10 +159,9 @@ public class BookingRepositoryTest {
     }
 
     @Test
-    void findByBookerIdOrderByEndDateDesc() {
-        Pageable pageable = of(1, 2, DESC, "endDate");
-
-        var actualList = bookingRepository.findByBookerId(bookerOne.getId(), pageable).getContent();
+    void findPage_whenBookerAndAllState_thenPageOrderedByEndDateDesc() {
+        var actualList = bookingRepository.findPage(query(BOOKER, bookerOne, new AllStateStrategy(),
+                localDateTimeNow), of(1, 2)).getContent();
 
         var expectedList = List.of(bookingInFutureAndWaitingAndEndDateInFifteenDays,
                 bookingInFutureAndApprovedAndEndDateInSevenDays);
@@ -154,24 +170,20 @@ public class BookingRepositoryTest {
     }
 
     @Test
-    void findAllByBookerIdAndEndDateBeforeOrderByStartDateDesc() {
-        Pageable pageable = of(0, 10, DESC, "startDate");
-
-        var actualList = bookingRepository.findAllByBookerIdAndEndDateBefore(bookerOne.getId(),
-                LocalDateTime.now(), pageable).getContent();
+    void findPage_whenBookerAndPastState_thenTiesOrderedByIdDesc() {
+        var actualList = bookingRepository.findPage(query(BOOKER, bookerOne, new PastStateStrategy(),
+                localDateTimeNow), of(0, 10)).getContent();
 
-        var expectedList = List.of(bookingInPastAndApprovedAndEndDateFiveDaysBefore,
-                bookingInPastAndRejectedAndEndDateThreeDaysBefore);
+        var expectedList = List.of(bookingInPastAndRejectedAndEndDateThreeDaysBefore,
+                bookingInPastAndApprovedAndEndDateFiveDaysBefore);
 
         assertThat(actualList).isEqualTo(expectedList);
     }
 
     @Test
-    void findByBookerIdAndStartDateAfterOrderByEndDateDesc() {
-        Pageable pageable = of(0, 10, DESC, "endDate");
-
-        var actualList = bookingRepository.findByBookerIdAndStartDateAfter(bookerOne.getId(),
-                LocalDateTime.now(), pageable).getContent();
+    void findPage_whenBookerAndFutureState() {
+        var actualList = bookingRepository.findPage(query(BOOKER, bookerOne, new FutureStateStrategy(),
+                localDateTimeNow), of(0, 10)).getContent();
 
         var expectedList = List.of(bookingInFutureAndWaitingAndEndDateInFifteenDays,
                 bookingInFutureAndApprovedAndEndDateInSevenDays);
@@ -180,85 +192,68 @@ public class BookingRepositoryTest {
     }
 
     @Test
-    void findAllByBookerIdAndStatusIsOrderByStartDateDesc() {
-        Pageable pageable = of(0, 10, DESC, "startDate");
-
-        var actualList = bookingRepository.findAllByBookerIdAndStatusIs(bookerOne.getId(),
-                Status.WAITING, pageable).getContent();
+    void findPage_whenBookerAndWaitingState() {
+        var actualList = bookingRepository.findPage(query(BOOKER, bookerOne, new WaitingStateStrategy(),
+                localDateTimeNow), of(0, 10)).getContent();
 
         assertThat(actualList).isEqualTo(List.of(bookingInFutureAndWaitingAndEndDateInFifteenDays));
     }
 
     @Test
-    void findByBookerIdAndStartDateLessThanEqualAndEndDateGreaterThanOrderByEndDateDesc() {
-        Pageable pageable = of(0, 10, DESC, "endDate");
-
-        var actualList = bookingRepository
-                .findByBookerIdAndStartDateLessThanEqualAndEndDateGreaterThan(bookerOne.getId(),
-                        localDateTimeNow.minusDays(2), localDateTimeNow.minusDays(5), pageable).getContent();
-
-        var expectedList = List.of(bookingInCurrentAndApprovedAndEndDateInFiveDays,
-                bookingInPastAndRejectedAndEndDateThreeDaysBefore);
+    void findPage_whenBookerAndCurrentState() {
+        var actualList = bookingRepository.findPage(query(BOOKER, bookerOne, new CurrentStateStrategy(),
+                localDateTimeNow), of(0, 10)).getContent();
 
-        assertThat(actualList).isEqualTo(expectedList);
+        assertThat(actualList).isEqualTo(List.of(bookingInCurrentAndApprovedAndEndDateInFiveDays));
     }
 
     @Test
-    void findByItemOwnerIdOrderByEndDateDesc() {
-        Pageable pageable = of(1, 2, DESC, "endDate");
-
-        var actualList = bookingRepository.findByItemOwnerId(owner.getId(),
-                pageable).getContent();
+    void findPage_whenOwnerAndAllState_thenPageOrderedByEndDateDesc() {
+        var page = bookingRepository.findPage(query(OWNER, owner, new AllStateStrategy(),
+                localDateTimeNow), of(1, 2));
 
         var expectedList = List.of(bookingInFutureAndWaitingAndEndDateInFifteenDays,
                 bookingByBookerTwoInFutureAndWaitingAndEndDateInTenDays);
 
-        assertThat(actualList).isEqualTo(expectedList);
+        assertThat(page.getContent()).isEqualTo(expectedList);
+        assertThat(page.hasNext()).isTrue();
     }
 
     @Test
-    void findByItemOwnerIdAndEndDateBeforeOrderByStartDateDesc() {
-        Pageable pageable = of(0, 10, DESC, "startDate");
-
-        var actualList = bookingRepository.findByItemOwnerIdAndEndDateBefore(owner.getId(),
-                localDateTimeNow.minusDays(2), pageable).getContent();
+    void findPage_whenOwnerAndPastState() {
+        var actualList = bookingRepository.findPage(query(OWNER, owner, new PastStateStrategy(),
+                localDateTimeNow.minusDays(2)), of(0, 10)).getContent();
 
-        var expectedList = List.of(bookingInPastAndApprovedAndEndDateFiveDaysBefore,
-                bookingInPastAndRejectedAndEndDateThreeDaysBefore);
+        var expectedList = List.of(bookingInPastAndRejectedAndEndDateThreeDaysBefore,
+                bookingInPastAndApprovedAndEndDateFiveDaysBefore);
 
         assertThat(actualList).isEqualTo(expectedList);
     }
 
     @Test
-    void findByItemOwnerIdAndStartDateAfterOrderByEndDateDesc() {
-        Pageable pageable = of(0, 10, DESC, "endDate");
-
-        var actualList = bookingRepository.findByItemOwnerIdAndStartDateAfter(owner.getId(),
-                localDateTimeNow.plusDays(2), pageable).getContent();
+    void findPage_whenOwnerAndFutureState() {
+        var actualList = bookingRepository.findPage(query(OWNER, owner, new FutureStateStrategy(),
+                localDateTimeNow.plusDays(2)), of(0, 10)).getContent();
 
         assertThat(actualList).isEqualTo(List.of(bookingInFutureAndWaitingAndEndDateInFifteenDays));
     }
 
     @Test
-    void findByItemOwnerIdAndStatusIsOrderByStartDateDesc() {
-        Pageable pageable = of(0, 10, DESC, "startDate");
-
-        var actualList = bookingRepository.findByItemOwnerIdAndStatusIs(owner.getId(),
-                Status.WAITING, pageable).getContent();
+    void findPage_whenOwnerAndWaitingState() {
+        var page = bookingRepository.findPage(query(OWNER, owner, new WaitingStateStrategy(),
+                localDateTimeNow), of(0, 10));
 
         var expectedList = List.of(bookingInFutureAndWaitingAndEndDateInFifteenDays,
                 bookingByBookerTwoInFutureAndWaitingAndEndDateInTenDays);
 
-        assertThat(actualList).isEqualTo(expectedList);
+        assertThat(page.getContent()).isEqualTo(expectedList);
+        assertThat(page.hasNext()).isFalse();
     }
 
     @Test
-    void findByItemOwnerIdAndStartDateLessThanEqualAndEndDateGreaterThanOrderByEndDateDesc() {
-        Pageable pageable = of(0, 10, DESC, "endDate");
-
-        var actualList = bookingRepository
-                .findByItemOwnerIdAndStartDateLessThanEqualAndEndDateGreaterThan(owner.getId(),
-                        localDateTimeNow.minusDays(3), localDateTimeNow.minusDays(6), pageable).getContent();
+    void findPage_whenOwnerAndCurrentState() {
+        var actualList = bookingRepository.findPage(query(OWNER, owner, new CurrentStateStrategy(),
+                localDateTimeNow.minusDays(6)), of(0, 10)).getContent();
 
         var expectedList = List.of(bookingInPastAndRejectedAndEndDateThreeDaysBefore,
                 bookingInPastAndApprovedAndEndDateFiveDaysBefore);
@@ -267,24 +262,108 @@ public class BookingRepositoryTest {
     }
 
     @Test
-    void findAllByItemIdAndStartDateIsAfterOrderByStartDateDesc() {
+    void findNextApprovedByItemIds() {
         var actualList = bookingRepository
-                .findAllByItemIdAndStartDateIsAfterOrderByStartDateDesc(itemOne.getId(),
-                        localDateTimeNow.minusDays(10));
+                .findNextApprovedByItemIds(List.of(itemOne.getId(), itemTwo.getId(), itemThree.getId()),
+                        localDateTimeNow);
 
-        var expectedList = List.of(bookingInFutureAndApprovedAndEndDateInSevenDays,
-                bookingByBookerTwoInFutureAndWaitingAndEndDateInTenDays);
+        assertThat(actualList).hasSize(1);
+        assertThat(actualList.get(0).getItemId()).isEqualTo(itemOne.getId());
+        assertThat(actualList.get(0).getId()).isEqualTo(bookingInFutureAndApprovedAndEndDateInSevenDays.getId());
+        assertThat(actualList.get(0).getBookerId()).isEqualTo(bookerOne.getId());
+    }
 
-        assertThat(actualList).isEqualTo(expectedList);
+    @Test
+    void findAllAfter_whenPagingByCursor_thenEveryBookingReturnedOnceInSortOrder() {
+        var query = query(BOOKER, bookerOne, new AllStateStrategy(), localDateTimeNow);
+
+        var firstPage = bookingRepository.findAllAfter(query, null, 2);
+        var secondPage = bookingRepository.findAllAfter(query, END_DATE.cursorOf(firstPage.get(1)), 2);
+        var lastPage = bookingRepository.findAllAfter(query, END_DATE.cursorOf(secondPage.get(1)), 2);
+
+        assertThat(firstPage).isEqualTo(List.of(bookingInFutureAndWaitingAndEndDateInFifteenDays,
+                bookingInFutureAndApprovedAndEndDateInSevenDays));
+        assertThat(secondPage).isEqualTo(List.of(bookingInCurrentAndApprovedAndEndDateInFiveDays,
+                bookingInPastAndRejectedAndEndDateThreeDaysBefore));
+        assertThat(lastPage).isEqualTo(List.of(bookingInPastAndApprovedAndEndDateFiveDaysBefore));
     }
 
     @Test
-    void findAllByItemIdAndEndDateIsBeforeOrderByEndDateDesc() {
+    void findAllAfter_whenStateSpecificationIsGiven_thenReturnedOnlyMatchingBookings() {
+        var query = query(OWNER, owner, new WaitingStateStrategy(), localDateTimeNow);
+
+        var actualList = bookingRepository.findAllAfter(query, null, 10);
+
+        assertThat(actualList).isEqualTo(List.of(bookingInFutureAndWaitingAndEndDateInFifteenDays,
+                bookingByBookerTwoInFutureAndWaitingAndEndDateInTenDays));
+    }
+
+    @Test
+    void countBySpecification() {
+        assertThat(bookingRepository.count(bookerIdIs(bookerOne.getId()))).isEqualTo(5);
+        assertThat(bookingRepository.count(itemOwnerIdIs(owner.getId()).and(statusIs(Status.WAITING))))
+                .isEqualTo(2);
+    }
+
+    @Test
+    void findNextApprovedBoundaryByItemId() {
+        assertThat(bookingRepository.findNextApprovedBoundaryByItemId(itemOne.getId(), localDateTimeNow))
+                .contains(localDateTimeNow.plusDays(2));
+        assertThat(bookingRepository.findNextApprovedBoundaryByItemId(itemThree.getId(), localDateTimeNow))
+                .contains(localDateTimeNow.plusDays(5));
+        assertThat(bookingRepository.findNextApprovedBoundaryByItemId(itemTwo.getId(), localDateTimeNow))
+                .isEmpty();
+    }
+
+    @Test
+    void findApprovedIntervalsByItemId() {
+        assertThat(bookingRepository.findApprovedIntervalsByItemId(itemOne.getId(), localDateTimeNow))
+                .containsExactly(new BookedInterval(bookingInFutureAndApprovedAndEndDateInSevenDays.getId(),
+                        localDateTimeNow.plusDays(2), localDateTimeNow.plusDays(7)));
+        assertThat(bookingRepository.findApprovedIntervalsByItemId(itemTwo.getId(), localDateTimeNow))
+                .isEmpty();
+    }
+
+    @Test
+    void save_whenApprovedBookingOverlapsAnotherApprovedBooking_thenThrowDataIntegrityViolation() {
+        var overlapping = Booking.builder()
+                .startDate(localDateTimeNow.plusDays(3))
+                .endDate(localDateTimeNow.plusDays(4))
+                .booker(bookingByBookerTwoInFutureAndWaitingAndEndDateInTenDays.getBooker())
+                .item(itemOne)
+                .status(Status.APPROVED)
+                .build();
+
+        var exception = assertThrows(DataIntegrityViolationException.class,
+                () -> bookingRepository.saveAndFlush(overlapping));
+        assertThat(exception.getMostSpecificCause()).isInstanceOfSatisfying(SQLException.class,
+                cause -> assertThat(cause.getSQLState()).isEqualTo("23P01"));
+        testEntityManager.clear();
+    }
+
+    @Test
+    void save_whenApprovedBookingStartsWhereAnotherEnds_thenSaved() {
+        var adjacent = bookingRepository.saveAndFlush(Booking.builder()
+                .startDate(localDateTimeNow.plusDays(7))
+                .endDate(localDateTimeNow.plusDays(9))
+                .booker(bookingByBookerTwoInFutureAndWaitingAndEndDateInTenDays.getBooker())
+                .item(itemOne)
+                .status(Status.APPROVED)
+                .build());
+
+        assertThat(adjacent.getId()).isNotNull();
+    }
+
+    @Test
+    void findLastApprovedByItemIds() {
         var actualList = bookingRepository
-                .findAllByItemIdAndEndDateIsBeforeOrderByEndDateDesc(itemThree.getId(),
+                .findLastApprovedByItemIds(List.of(itemOne.getId(), itemTwo.getId(), itemThree.getId()),
                         localDateTimeNow.plusDays(8));
 
-        assertThat(actualList).isEqualTo(List.of(bookingInCurrentAndApprovedAndEndDateInFiveDays));
+        assertThat(actualList)
+                .extracting(BookingForItemView::getId)
+                .containsExactlyInAnyOrder(bookingInFutureAndApprovedAndEndDateInSevenDays.getId(),
+                        bookingInCurrentAndApprovedAndEndDateInFiveDays.getId());
     }
 
     @Test
@@ -302,4 +381,9 @@ public class BookingRepositoryTest {
         itemRepository.deleteAll();
         userRepository.deleteAll();
     }
+
+    private static BookingQuery query(BookingRole role, User user, BookingStateFetchStrategy strategy,
+                                      LocalDateTime now) {
+        return BookingQuery.of(role, user.getId(), strategy, now);
+    }
 }
@@ -0,0 +1,123 @@
+package ru.practicum.shareit.booking;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static java.time.temporal.ChronoUnit.MILLIS;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.booking.dto.BookingPostDto;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class BookingServiceImplIT {
+
+    private static final int THREADS = 64;
+
+    private final BookingService bookingService;
+
+    private final BookingRepository bookingRepository;
+    private final ItemRepository itemRepository;
+    private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
+
+    private User owner;
+    private Item item;
+    private final List<User> bookers = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.save(User.builder()
+                .name("Owner")
+                .email("owner@yandex.ru")
+                .build());
+        item = itemRepository.save(Item.builder()
+                .name("Hot item")
+                .description("Everybody wants it")
+                .available(true)
+                .ownerId(owner.getId())
+                .build());
+
+        for (int i = 0; i < THREADS; i++) {
+            bookers.add(userRepository.save(User.builder()
+                    .name("Booker " + i)
+                    .email("booker" + i + "@yandex.ru")
+                    .build()));
+        }
+    }
+
+    @Test
+    void addAndApprove_whenOneItemIsBookedFromManyThreads_thenOnlyOneBookingIsApproved() throws Exception {
+        var start = LocalDateTime.now().plusDays(1).truncatedTo(MILLIS);
+        double waitsBefore = meterRegistry.get("booking.item.lock.wait").timer().count();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch ready = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+
+        for (int i = 0; i < THREADS; i++) {
+            User booker = bookers.get(i);
+            var bookingPostDto = BookingPostDto.builder()
+                    .itemId(item.getId())
+                    .start(start.plusHours(i % 4))
+                    .end(start.plusDays(1))
+                    .build();
+
+            results.add(executor.submit(() -> {
+                ready.await();
+                try {
+                    var booking = bookingService.add(booker.getId(), bookingPostDto);
+                    bookingService.approveOrReject(booking.getId(), true, owner.getId());
+                    return true;
+                } catch (ConflictException e) {
+                    return false;
+                }
+            }));
+        }
+        ready.countDown();
+
+        int approved = 0;
+        for (Future<Boolean> result : results) {
+            approved += result.get(60, TimeUnit.SECONDS) ? 1 : 0;
+        }
+        executor.shutdown();
+
+        assertThat(approved).isEqualTo(1);
+        assertThat(bookingRepository.findAll())
+                .filteredOn(booking -> booking.getStatus() == Status.APPROVED)
+                .hasSize(1);
+        assertThat(meterRegistry.get("booking.item.lock.wait").timer().count() - waitsBefore)
+                .isGreaterThanOrEqualTo(THREADS);
+    }
+
+    @AfterEach
+    void wipeData() {
+        bookingRepository.deleteAll();
+        itemRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+}
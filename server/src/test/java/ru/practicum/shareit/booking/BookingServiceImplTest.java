@@ -1,5 +1,9 @@
 package ru.practicum.shareit.booking;
 
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -8,31 +12,48 @@ import static java.util.Collections.emptyList;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
-import static org.springframework.data.domain.Sort.Direction.DESC;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ru.practicum.shareit.booking.conflict.BookingConflictIndex;
+import ru.practicum.shareit.booking.dto.BookingCountDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingPostDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.State;
 import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.service.BookingCountCache;
 import ru.practicum.shareit.booking.service.BookingServiceImpl;
+import ru.practicum.shareit.booking.service.ItemLockStripes;
 import ru.practicum.shareit.booking.stratagy.AllStateStrategy;
 import ru.practicum.shareit.booking.stratagy.BookingStateFetchStrategyFactory;
+import ru.practicum.shareit.booking.stratagy.BookingSortField;
 import ru.practicum.shareit.booking.stratagy.WaitingStateStrategy;
 import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.cache.ItemViewCache;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
@@ -58,6 +79,16 @@ public class BookingServiceImplTest {
     BookingMapper bookingMapper;
     @Mock
     BookingStateFetchStrategyFactory strategyFactory;
+    @Mock
+    ItemViewCache itemViewCache;
+    @Mock
+    BookingCountCache countCache;
+    @Mock
+    BookingConflictIndex conflictIndex;
+    @Spy
+    ItemLockStripes itemLocks = new ItemLockStripes(64, Duration.ofSeconds(1), new SimpleMeterRegistry());
+    @Spy
+    TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
 
     private final Integer from = 0;
     private final Integer size = 10;
@@ -76,6 +107,7 @@ public class BookingServiceImplTest {
                 .itemId(itemId)
                 .build();
         Item item = Item.builder()
+                .id(itemId)
                 .ownerId(ownerId)
                 .available(true)
                 .build();
@@ -92,7 +124,9 @@ public class BookingServiceImplTest {
         var actualBookingDto = bookingService.add(userId, bookingPostDto);
 
         assertThat(actualBookingDto).isEqualTo(expectedBookingDto);
+        verify(itemLocks).callWithLock(eq(itemId), any());
         verify(bookingRepository).save(booking);
+        verify(itemViewCache).evict(itemId);
     }
 
     @Test
@@ -165,6 +199,37 @@ public class BookingServiceImplTest {
         verify(bookingRepository, never()).save(any(Booking.class));
     }
 
+    @Test
+    void addBooking_whenIntervalIsAlreadyBooked_throwConflictException() {
+        long userId = 1L;
+        long itemId = 1L;
+        var start = LocalDateTime.now().plusDays(1);
+        var end = start.plusDays(2);
+
+        BookingPostDto bookingPostDto = BookingPostDto.builder()
+                .itemId(itemId)
+                .start(start)
+                .end(end)
+                .build();
+        Item item = Item.builder()
+                .id(itemId)
+                .ownerId(2L)
+                .available(true)
+                .build();
+
+        when(userRepository.findById(anyLong()))
+                .thenReturn(Optional.of(User.builder().build()));
+        when(itemRepository.findById(anyLong()))
+                .thenReturn(Optional.of(item));
+        doThrow(new ConflictException("Item with id: '1' is already booked"))
+                .when(conflictIndex).checkAvailable(itemId, start, end);
+
+        assertThrows(ConflictException.class, () ->
+                bookingService.add(userId, bookingPostDto));
+
+        verify(bookingRepository, never()).save(any(Booking.class));
+    }
+
     @Test
     void approveBooking_whenParamIsTrue() {
         long bookingId = 1L;
@@ -172,6 +237,7 @@ public class BookingServiceImplTest {
         long ownerId = 1L;
 
         Item item = Item.builder()
+                .id(1L)
                 .ownerId(ownerId)
                 .build();
         Booking booking = Booking.builder()
@@ -186,6 +252,8 @@ public class BookingServiceImplTest {
                 .item(itemDto)
                 .build();
 
+        when(bookingRepository.findItemIdById(anyLong()))
+                .thenReturn(Optional.of(1L));
         when(bookingRepository.findById(anyLong()))
                 .thenReturn(Optional.of(booking));
         when(bookingMapper.toBookingDto(any()))
@@ -195,6 +263,90 @@ public class BookingServiceImplTest {
 
         assertThat(actualBookingDto)
                 .isEqualTo(expectedBookingDto);
+        verify(conflictIndex).reserve(booking);
+    }
+
+    @Test
+    void approveBooking_whenDatabaseRejectsOverlap_throwConflictException() {
+        long bookingId = 1L;
+        long userId = 1L;
+
+        Booking booking = Booking.builder()
+                .status(WAITING)
+                .item(Item.builder()
+                        .id(1L)
+                        .ownerId(userId)
+                        .build())
+                .build();
+
+        when(bookingRepository.findItemIdById(anyLong()))
+                .thenReturn(Optional.of(1L));
+        when(bookingRepository.findById(anyLong()))
+                .thenReturn(Optional.of(booking));
+        when(bookingRepository.saveAndFlush(booking))
+                .thenThrow(new DataIntegrityViolationException("could not execute statement",
+                        new SQLException("violates bookings_approved_no_overlap", "23P01")));
+
+        var exception = assertThrows(ConflictException.class, () ->
+                bookingService.approveOrReject(bookingId, true, userId));
+
+        assertThat(exception.getMessage())
+                .isEqualTo("Item with id: '1' is already booked for this period");
+    }
+
+    @Test
+    void approveBooking_whenDatabaseRejectsRowForOtherReason_rethrowDataIntegrityViolationException() {
+        long bookingId = 1L;
+        long userId = 1L;
+
+        Booking booking = Booking.builder()
+                .status(WAITING)
+                .item(Item.builder()
+                        .id(1L)
+                        .ownerId(userId)
+                        .build())
+                .build();
+        var violation = new DataIntegrityViolationException("could not execute statement",
+                new SQLException("violates foreign key constraint", "23503"));
+
+        when(bookingRepository.findItemIdById(anyLong()))
+                .thenReturn(Optional.of(1L));
+        when(bookingRepository.findById(anyLong()))
+                .thenReturn(Optional.of(booking));
+        when(bookingRepository.saveAndFlush(booking))
+                .thenThrow(violation);
+
+        var exception = assertThrows(DataIntegrityViolationException.class, () ->
+                bookingService.approveOrReject(bookingId, true, userId));
+
+        assertThat(exception).isSameAs(violation);
+    }
+
+    @Test
+    void approveBooking_whenIntervalIsAlreadyBooked_throwConflictException() {
+        long bookingId = 1L;
+        long userId = 1L;
+
+        Booking booking = Booking.builder()
+                .status(WAITING)
+                .item(Item.builder()
+                        .id(1L)
+                        .ownerId(userId)
+                        .build())
+                .build();
+
+        when(bookingRepository.findItemIdById(anyLong()))
+                .thenReturn(Optional.of(1L));
+        when(bookingRepository.findById(anyLong()))
+                .thenReturn(Optional.of(booking));
+        doThrow(new ConflictException("Item with id: '1' is already booked"))
+                .when(conflictIndex).reserve(booking);
+
+        assertThrows(ConflictException.class, () ->
+                bookingService.approveOrReject(bookingId, true, userId));
+
+        assertThat(booking.getStatus()).isEqualTo(WAITING);
+        verify(bookingRepository, never()).save(any(Booking.class));
     }
 
     @Test
@@ -204,6 +356,7 @@ public class BookingServiceImplTest {
         long ownerId = 1L;
 
         Item item = Item.builder()
+                .id(1L)
                 .ownerId(ownerId)
                 .build();
         Booking booking = Booking.builder()
@@ -218,6 +371,8 @@ public class BookingServiceImplTest {
                 .item(itemDto)
                 .build();
 
+        when(bookingRepository.findItemIdById(anyLong()))
+                .thenReturn(Optional.of(1L));
         when(bookingRepository.findById(anyLong()))
                 .thenReturn(Optional.of(booking));
         when(bookingMapper.toBookingDto(any()))
@@ -243,6 +398,8 @@ public class BookingServiceImplTest {
                 .item(item)
                 .build();
 
+        when(bookingRepository.findItemIdById(anyLong()))
+                .thenReturn(Optional.of(1L));
         when(bookingRepository.findById(anyLong()))
                 .thenReturn(Optional.of(booking));
 
@@ -267,6 +424,8 @@ public class BookingServiceImplTest {
                 .item(item)
                 .build();
 
+        when(bookingRepository.findItemIdById(anyLong()))
+                .thenReturn(Optional.of(1L));
         when(bookingRepository.findById(anyLong()))
                 .thenReturn(Optional.of(booking));
 
@@ -277,6 +436,31 @@ public class BookingServiceImplTest {
                 .isEqualTo("This booking is already approved");
     }
 
+    @Test
+    void approveBooking_whenBookingExpired_throwBadRequestException() {
+        long bookingId = 1L;
+        long userId = 1L;
+
+        Item item = Item.builder()
+                .ownerId(userId)
+                .build();
+        Booking booking = Booking.builder()
+                .status(Status.EXPIRED)
+                .item(item)
+                .build();
+
+        when(bookingRepository.findItemIdById(anyLong()))
+                .thenReturn(Optional.of(1L));
+        when(bookingRepository.findById(anyLong()))
+                .thenReturn(Optional.of(booking));
+
+        var exception = assertThrows(BadRequestException.class, () ->
+                bookingService.approveOrReject(bookingId, true, userId));
+
+        assertThat(exception.getMessage())
+                .isEqualTo("This booking has expired");
+    }
+
     @Test
     void getBookingById() {
         long bookingId = 1L;
@@ -351,10 +535,10 @@ public class BookingServiceImplTest {
 
         when(userRepository.existsById(anyLong()))
                 .thenReturn(true);
-        when(bookingRepository.findByBookerId(userId, of(0, 10, DESC, "endDate")))
-                .thenReturn(Page.empty());
+        when(bookingRepository.findPage(any(BookingQuery.class), eq(of(0, 10))))
+                .thenReturn(new SliceImpl<>(emptyList()));
         when(strategyFactory.findStrategy(any()))
-                .thenReturn(new AllStateStrategy(bookingRepository));
+                .thenReturn(new AllStateStrategy());
 
         List<BookingDto> expectedBookingDtoList = emptyList();
         List<BookingDto> actualBookingDtoList = bookingService.findAllByBookerId(state, userId, from, size);
@@ -371,16 +555,59 @@ public class BookingServiceImplTest {
 
         when(userRepository.existsById(anyLong()))
                 .thenReturn(true);
-        when(bookingRepository.findByItemOwnerIdAndStatusIs(userId,
-                WAITING, of(0, 10, DESC, "startDate")))
-                .thenReturn(Page.empty());
+        when(bookingRepository.findPage(any(BookingQuery.class), eq(of(0, 10))))
+                .thenReturn(new SliceImpl<>(emptyList()));
         when(strategyFactory.findStrategy(any()))
-                .thenReturn(new WaitingStateStrategy(bookingRepository));
+                .thenReturn(new WaitingStateStrategy());
 
         List<BookingDto> expectedBookingDtoList = emptyList();
         List<BookingDto> actualBookingDtoList = bookingService.findAllByOwnerId(state, userId, from, size);
 
         assertThat(actualBookingDtoList)
                 .isEqualTo(expectedBookingDtoList);
+
+        var query = ArgumentCaptor.forClass(BookingQuery.class);
+        verify(bookingRepository).findPage(query.capture(), any());
+        assertThat(query.getValue().getSortField()).isEqualTo(BookingSortField.START_DATE);
+    }
+
+    @Test
+    void countByOwnerId_whenStateIsWaiting_thenReturnedCachedCount() {
+        String state = State.WAITING.name();
+        long userId = 1L;
+
+        when(userRepository.existsById(anyLong()))
+                .thenReturn(true);
+        when(countCache.get(eq(true), eq(State.WAITING), eq(userId), any()))
+                .thenReturn(3L);
+
+        var expectedCountDto = BookingCountDto.builder()
+                .state(State.WAITING)
+                .count(3L)
+                .build();
+
+        assertThat(bookingService.countByOwnerId(state, userId))
+                .isEqualTo(expectedCountDto);
+    }
+
+    @Test
+    void countByBookerId_whenStateIsUnknown_thenThrowBadRequestException() {
+        var exception = assertThrows(BadRequestException.class, () ->
+                bookingService.countByBookerId("UNKNOWN", 1L));
+
+        assertThat(exception.getMessage())
+                .isEqualTo("Unknown state: UNKNOWN");
+        verify(countCache, never()).get(anyBoolean(), any(), anyLong(), any());
+    }
+
+    @Test
+    void exportByOwnerId_whenStateIsUnknown_thenThrowBadRequestExceptionBeforeStreaming() {
+        List<BookingDto> exported = new ArrayList<>();
+
+        assertThrows(BadRequestException.class, () ->
+                bookingService.exportByOwnerId("UNKNOWN", 1L, exported::add));
+
+        verify(bookingRepository, never()).streamAll(any(), anyInt());
+        assertThat(exported).isEmpty();
     }
 }
@@ -0,0 +1,149 @@
+package ru.practicum.shareit.booking;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ru.practicum.shareit.booking.service.ItemLockStripes;
+import ru.practicum.shareit.exception.ConflictException;
+
+public class ItemLockStripesTest {
+
+    private static final int THREADS = 64;
+    private static final long HOT_ITEM_ID = 1L;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ItemLockStripes itemLocks;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        itemLocks = new ItemLockStripes(64, Duration.ofSeconds(10), meterRegistry);
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void callWithLock_whenOneItemIsBookedFromManyThreads_thenTransitionsAreSerialized() throws Exception {
+        int transitionsPerThread = 50;
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+        int[] state = new int[1];
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+
+        for (int i = 0; i < THREADS; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < transitionsPerThread; j++) {
+                    itemLocks.callWithLock(HOT_ITEM_ID, () -> {
+                        maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                        int read = state[0];
+                        Thread.yield();
+                        state[0] = read + 1;
+                        return inside.decrementAndGet();
+                    });
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+
+        assertThat(maxInside.get()).isEqualTo(1);
+        assertThat(state[0]).isEqualTo(THREADS * transitionsPerThread);
+        assertThat(meterRegistry.get("booking.item.lock.wait").timer().count())
+                .isEqualTo(THREADS * transitionsPerThread);
+    }
+
+    @Test
+    void callWithLock_whenItemsAreOnDifferentStripes_thenTheyDoNotWaitForEachOther() throws Exception {
+        itemLocks = new ItemLockStripes(64, Duration.ofMillis(100), meterRegistry);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<?> holder = executor.submit(() -> itemLocks.callWithLock(HOT_ITEM_ID, () -> {
+            locked.countDown();
+            return await(release);
+        }));
+        locked.await();
+
+        int free = 0;
+        for (long itemId = 2; itemId <= 65; itemId++) {
+            long id = itemId;
+            try {
+                executor.submit(() -> itemLocks.callWithLock(id, () -> id))
+                        .get(5, TimeUnit.SECONDS);
+                free++;
+            } catch (Exception e) {
+                assertThat(e).hasRootCauseInstanceOf(ConflictException.class);
+            }
+        }
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+
+        assertThat(free).isGreaterThanOrEqualTo(60);
+        assertThat(meterRegistry.get("booking.item.lock.queue").gauges()).hasSize(itemLocks.size());
+    }
+
+    @Test
+    void callWithLock_whenStripeIsHeldTooLong_thenThrowConflictException() throws Exception {
+        itemLocks = new ItemLockStripes(64, Duration.ofMillis(50), meterRegistry);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        executor.submit(() -> itemLocks.callWithLock(HOT_ITEM_ID, () -> {
+            locked.countDown();
+            return await(release);
+        }));
+        locked.await();
+
+        try {
+            assertThrows(ConflictException.class, () -> itemLocks.callWithLock(HOT_ITEM_ID, () -> null));
+        } finally {
+            release.countDown();
+        }
+        assertThat(meterRegistry.get("booking.item.lock.timeouts").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void callWithLock_whenTransactionIsActive_thenThrowIllegalStateException() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            assertThrows(IllegalStateException.class, () -> itemLocks.callWithLock(HOT_ITEM_ID, () -> null));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+    }
+
+    private static Void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,126 @@
+package ru.practicum.shareit.booking;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.service.WaitingBookingExpirer;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+@AutoConfigureTestDatabase
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class WaitingBookingExpirerTest {
+
+    private final BookingRepository bookingRepository;
+    private final ItemRepository itemRepository;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    private WaitingBookingExpirer expirer;
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        expirer = new WaitingBookingExpirer(bookingRepository, jdbcTemplate, transactionManager, 2, 10,
+                Duration.ZERO, new SimpleMeterRegistry());
+
+        User owner = userRepository.save(User.builder()
+                .name("Owner")
+                .email("owner@yandex.ru")
+                .build());
+        booker = userRepository.save(User.builder()
+                .name("Booker")
+                .email("booker@yandex.ru")
+                .build());
+        item = itemRepository.save(Item.builder()
+                .name("Drill")
+                .description("Simple drill")
+                .available(true)
+                .ownerId(owner.getId())
+                .build());
+    }
+
+    @Test
+    void expireStale_whenWaitingBookingsHaveStarted_thenOnlyTheyAreExpiredInChunks() {
+        for (int i = 1; i <= 5; i++) {
+            save(Status.WAITING, now.minusHours(i));
+        }
+        Booking future = save(Status.WAITING, now.plusDays(1));
+        Booking approved = save(Status.APPROVED, now.minusDays(2));
+        Booking rejected = save(Status.REJECTED, now.minusDays(3));
+
+        assertThat(expirer.expireStale()).isEqualTo(5);
+
+        assertThat(bookingRepository.findAll())
+                .filteredOn(booking -> booking.getStatus() == Status.EXPIRED)
+                .hasSize(5);
+        assertThat(bookingRepository.findById(future.getId()).orElseThrow().getStatus()).isEqualTo(Status.WAITING);
+        assertThat(bookingRepository.findById(approved.getId()).orElseThrow().getStatus())
+                .isEqualTo(Status.APPROVED);
+        assertThat(bookingRepository.findById(rejected.getId()).orElseThrow().getStatus())
+                .isEqualTo(Status.REJECTED);
+        assertThat(expirer.expireStale()).isZero();
+    }
+
+    @Test
+    void expireStale_whenDatabaseIsNotPostgres_thenNoConnectionIsHeldForTheRun() {
+        JdbcTemplate spiedJdbcTemplate = spy(jdbcTemplate);
+        expirer = new WaitingBookingExpirer(bookingRepository, spiedJdbcTemplate, transactionManager, 2, 10,
+                Duration.ZERO, new SimpleMeterRegistry());
+        for (int i = 1; i <= 3; i++) {
+            save(Status.WAITING, now.minusHours(i));
+        }
+
+        assertThat(expirer.expireStale()).isEqualTo(3);
+        assertThat(expirer.expireStale()).isZero();
+
+        verify(spiedJdbcTemplate, never()).execute(any(ConnectionCallback.class));
+    }
+
+    private Booking save(Status status, LocalDateTime start) {
+        return bookingRepository.save(Booking.builder()
+                .startDate(start)
+                .endDate(start.plusHours(1))
+                .item(item)
+                .booker(booker)
+                .status(status)
+                .build());
+    }
+
+    @AfterEach
+    void wipeData() {
+        bookingRepository.deleteAll();
+        itemRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+}
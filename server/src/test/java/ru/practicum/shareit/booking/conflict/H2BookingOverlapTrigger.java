@@ -0,0 +1,49 @@
+package ru.practicum.shareit.booking.conflict;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static java.lang.String.format;
+
+import org.h2.tools.TriggerAdapter;
+
+/**
+ * H2 stand-in for the {@code bookings_approved_no_overlap} exclusion constraint of the PostgreSQL schema:
+ * rejects a row that makes two APPROVED bookings of one item overlap.
+ */
+public class H2BookingOverlapTrigger extends TriggerAdapter {
+
+    private static final String EXCLUSION_VIOLATION = "23P01";
+
+    private static final String FIND_OVERLAP = "select id from bookings " +
+            "where item_id = ? " +
+            "  and status = 'APPROVED' " +
+            "  and id <> ? " +
+            "  and start_date < ? " +
+            "  and end_date > ? " +
+            "limit 1";
+
+    @Override
+    public void fire(Connection connection, ResultSet oldRow, ResultSet newRow) throws SQLException {
+        if (newRow == null || !"APPROVED".equals(newRow.getString("STATUS"))) {
+            return;
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement(FIND_OVERLAP)) {
+            statement.setLong(1, newRow.getLong("ITEM_ID"));
+            statement.setLong(2, newRow.getLong("ID"));
+            statement.setTimestamp(3, newRow.getTimestamp("END_DATE"));
+            statement.setTimestamp(4, newRow.getTimestamp("START_DATE"));
+
+            try (ResultSet overlapping = statement.executeQuery()) {
+                if (overlapping.next()) {
+                    throw new SQLException(format("Booking %d violates bookings_approved_no_overlap: "
+                            + "it overlaps approved booking %d", newRow.getLong("ID"),
+                            overlapping.getLong(1)), EXCLUSION_VIOLATION);
+                }
+            }
+        }
+    }
+}
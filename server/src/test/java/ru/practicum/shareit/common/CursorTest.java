@@ -0,0 +1,58 @@
+package ru.practicum.shareit.common;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import ru.practicum.shareit.exception.BadRequestException;
+
+public class CursorTest {
+
+    @Test
+    void decode_whenCursorIsEncoded_thenReturnedSameCursor() {
+        var withSortKey = Cursor.of(LocalDateTime.of(2022, 9, 1, 12, 30, 15, 123456000), 42L);
+        var idOnly = Cursor.of(7L);
+
+        assertThat(Cursor.decode(withSortKey.encode())).isEqualTo(withSortKey);
+        assertThat(Cursor.decode(idOnly.encode())).isEqualTo(idOnly);
+    }
+
+    @Test
+    void decode_whenValueIsBlank_thenReturnedNull() {
+        assertThat(Cursor.decode("")).isNull();
+        assertThat(Cursor.decode(null)).isNull();
+    }
+
+    @Test
+    void decode_whenValueIsMalformed_thenThrowBadRequestException() {
+        assertThrows(BadRequestException.class, () -> Cursor.decode("not a cursor"));
+        assertThrows(BadRequestException.class, () -> Cursor.decode(Cursor.of(1L).encode().substring(1)));
+    }
+
+    @Test
+    void of_whenMoreRowsThanSizeFetched_thenReturnedCursorOfLastRowOnPage() {
+        var page = CursorPage.of(List.of(1L, 2L, 3L), 2, Cursor::of);
+
+        assertThat(page.getContent()).isEqualTo(List.of(1L, 2L));
+        assertThat(page.getNextCursor()).isEqualTo(Cursor.of(2L));
+    }
+
+    @Test
+    void of_whenNotMoreRowsThanSizeFetched_thenReturnedLastPage() {
+        var page = CursorPage.of(List.of(1L, 2L), 2, Cursor::of);
+
+        assertThat(page.getContent()).isEqualTo(List.of(1L, 2L));
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void fetchSize_whenSizeIsNotPositive_thenThrowBadRequestException() {
+        assertThat(CursorPage.fetchSize(10)).isEqualTo(11);
+        assertThrows(BadRequestException.class, () -> CursorPage.fetchSize(0));
+        assertThrows(BadRequestException.class, () -> CursorPage.of(List.of(1L), 0, Cursor::of));
+    }
+}
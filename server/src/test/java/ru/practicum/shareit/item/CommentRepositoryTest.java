@@ -0,0 +1,123 @@
+package ru.practicum.shareit.item;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+@AutoConfigureTestDatabase
+@DataJpaTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class CommentRepositoryTest {
+
+    private final CommentRepository commentRepository;
+    private final ItemRepository itemRepository;
+    private final UserRepository userRepository;
+
+    private final LocalDateTime created = LocalDateTime.of(2022, 9, 1, 12, 0);
+
+    private Item itemOne;
+    private Item itemTwo;
+
+    private Comment commentOne;
+    private Comment commentTwo;
+    private Comment commentThree;
+
+    @BeforeEach
+    void setUp() {
+        User owner = userRepository.save(User.builder()
+                .name("Test owner")
+                .email("owner@yandex.ru")
+                .build());
+
+        User author = userRepository.save(User.builder()
+                .name("Test author")
+                .email("author@yandex.ru")
+                .build());
+
+        itemOne = itemRepository.save(Item.builder()
+                .name("Test item one")
+                .description("Test description one")
+                .available(true)
+                .ownerId(owner.getId())
+                .build());
+
+        itemTwo = itemRepository.save(Item.builder()
+                .name("Test item two")
+                .description("Test description two")
+                .available(true)
+                .ownerId(owner.getId())
+                .build());
+
+        Item itemThree = itemRepository.save(Item.builder()
+                .name("Test item three")
+                .description("Test description three")
+                .available(true)
+                .ownerId(owner.getId())
+                .build());
+
+        commentOne = saveComment("Comment one", itemOne, author);
+        commentTwo = saveComment("Comment two", itemTwo, author);
+        commentThree = saveComment("Comment three", itemOne, owner);
+        saveComment("Comment four", itemThree, author);
+    }
+
+    @Test
+    void findAllByItemIds() {
+        var actualList = commentRepository.findAllByItemIds(List.of(itemOne.getId(), itemTwo.getId()));
+
+        assertThat(actualList).isEqualTo(List.of(
+                toCommentDto(commentOne, itemOne, "Test author"),
+                toCommentDto(commentTwo, itemTwo, "Test author"),
+                toCommentDto(commentThree, itemOne, "Test owner")));
+    }
+
+    @Test
+    void findAllByItemIds_whenItemsHaveNoComments_thenReturnedEmptyList() {
+        var wrongItemId = 999L;
+
+        assertThat(commentRepository.findAllByItemIds(List.of(wrongItemId))).isEmpty();
+    }
+
+    @AfterEach
+    void wipeData() {
+        commentRepository.deleteAll();
+        itemRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private Comment saveComment(String text, Item item, User author) {
+        return commentRepository.save(Comment.builder()
+                .text(text)
+                .item(item)
+                .author(author)
+                .created(created)
+                .build());
+    }
+
+    private CommentDto toCommentDto(Comment comment, Item item, String authorName) {
+        return CommentDto.builder()
+                .id(comment.getId())
+                .text(comment.getText())
+                .itemId(item.getId())
+                .authorName(authorName)
+                .created(created)
+                .build();
+    }
+}
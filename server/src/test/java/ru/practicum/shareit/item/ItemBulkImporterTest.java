@@ -0,0 +1,189 @@
+package ru.practicum.shareit.item;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.item.dto.ItemBulkResultDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.item.search.ItemSearchEngineFactory;
+import ru.practicum.shareit.item.service.ItemBulkImporter;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.ItemRequestRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+@AutoConfigureTestDatabase
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class ItemBulkImporterTest {
+
+    private final ItemRepository itemRepository;
+    private final ItemRequestRepository itemRequestRepository;
+    private final UserRepository userRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final ItemSearchEngine searchEngine = mock(ItemSearchEngine.class);
+
+    private ItemBulkImporter importer;
+    private User owner;
+    private ItemRequest itemRequest;
+
+    @BeforeEach
+    void setUp() {
+        var searchEngineFactory = mock(ItemSearchEngineFactory.class);
+        when(searchEngineFactory.getEngine()).thenReturn(searchEngine);
+        importer = new ItemBulkImporter(itemRepository, itemRequestRepository, new ItemMapper(), searchEngineFactory,
+                new ObjectMapper(), transactionManager, entityManager, 2);
+
+        owner = userRepository.save(User.builder()
+                .name("Owner")
+                .email("owner@yandex.ru")
+                .build());
+        itemRequest = itemRequestRepository.save(ItemRequest.builder()
+                .description("Need a drill")
+                .requestorId(owner.getId())
+                .created(LocalDateTime.now())
+                .build());
+    }
+
+    @Test
+    void importItems_whenArrayHasBadRows_thenOnlyTheyAreRejectedAndOthersAreSaved() throws IOException {
+        String body = "[" +
+                row("Drill", itemRequest.getId()) + "," +
+                "{\"description\":\"No name\",\"available\":true}," +
+                row("Saw", 999_999L) + "," +
+                "{\"name\":\"Hammer\",\"description\":\"Heavy\",\"available\":\"sometimes\"}," +
+                "null," +
+                row("Ladder", null) + "," +
+                row("Rake", null) +
+                "]";
+
+        List<ItemBulkResultDto> results = importer.importItems(owner.getId(), stream(body));
+
+        assertThat(results).extracting(ItemBulkResultDto::getIndex).containsExactly(0, 1, 2, 3, 4, 5, 6);
+        assertThat(results).filteredOn(result -> result.getId() != null)
+                .extracting(ItemBulkResultDto::getIndex)
+                .containsExactly(0, 5, 6);
+        assertThat(results.get(1).getError()).isEqualTo("name: must not be blank");
+        assertThat(results.get(2).getError()).isEqualTo("requestId: request 999999 does not exist");
+        assertThat(results.get(3).getError()).startsWith("Row is not an item");
+        assertThat(results.get(4).getError()).startsWith("Row is not an item");
+
+        assertThat(itemRepository.findAll())
+                .extracting(Item::getName, Item::getOwnerId)
+                .containsExactlyInAnyOrder(
+                        tuple("Drill", owner.getId()),
+                        tuple("Ladder", owner.getId()),
+                        tuple("Rake", owner.getId()));
+        verify(searchEngine, times(3)).index(any(Item.class));
+    }
+
+    @Test
+    void importItems_whenNdjsonIsStreamed_thenEveryRowIsSavedInBatches() throws IOException {
+        String body = IntStream.range(0, 25)
+                .mapToObj(i -> row("Item " + i, null))
+                .collect(Collectors.joining("\n", "", "\n"));
+
+        List<ItemBulkResultDto> results = importer.importItems(owner.getId(), stream(body));
+
+        assertThat(results).hasSize(25)
+                .allSatisfy(result -> assertThat(result.getError()).isNull())
+                .extracting(ItemBulkResultDto::getId)
+                .doesNotHaveDuplicates();
+        assertThat(itemRepository.count()).isEqualTo(25);
+    }
+
+    @Test
+    void importItems_whenJsonBreaksMidStream_thenEarlierRowsAreKeptAndReadingStops() throws IOException {
+        String body = row("Drill", null) + "\n" + row("Saw", null) + "\n{\"name\": \"Hammer\",, }\n" + row("Rake", null);
+
+        List<ItemBulkResultDto> results = importer.importItems(owner.getId(), stream(body));
+
+        assertThat(results).hasSize(3);
+        assertThat(results.get(2).getIndex()).isEqualTo(2);
+        assertThat(results.get(2).getError()).startsWith("Malformed JSON");
+        assertThat(itemRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void importItems_whenRequestHoldsOneEntityManager_thenItIsClearedAfterEveryBatch() throws IOException {
+        // what open-in-view binds for the whole request
+        EntityManager requestEntityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory,
+                new EntityManagerHolder(requestEntityManager));
+        List<Integer> managedWhenIndexed = new ArrayList<>();
+        doAnswer(invocation -> managedWhenIndexed.add(
+                requestEntityManager.unwrap(Session.class).getStatistics().getEntityCount()))
+                .when(searchEngine).index(any(Item.class));
+
+        String body = IntStream.range(0, 7)
+                .mapToObj(i -> row("Item " + i, itemRequest.getId()))
+                .collect(Collectors.joining("\n"));
+        try {
+            importer.importItems(owner.getId(), stream(body));
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            requestEntityManager.close();
+        }
+
+        assertThat(managedWhenIndexed).hasSize(7).containsOnly(0);
+        assertThat(itemRepository.count()).isEqualTo(7);
+    }
+
+    private static String row(String name, Long requestId) {
+        return "{\"name\":\"" + name + "\",\"description\":\"" + name + " for rent\",\"available\":true" +
+                (requestId == null ? "" : ",\"requestId\":" + requestId) + "}";
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @AfterEach
+    void wipeData() {
+        itemRepository.deleteAll();
+        itemRequestRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+}
@@ -2,6 +2,7 @@ package ru.practicum.shareit.item;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,7 +16,11 @@ import org.springframework.test.web.servlet.MockMvc;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
@@ -27,7 +32,10 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.AvailabilityRangeDto;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemBulkResultDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemGetDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
@@ -105,6 +113,48 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$.requestId").value(itemDto.getRequestId()));
     }
 
+    @Test
+    void addItems_whenBodyIsNdjson_thenPerRowResultsAreReturned() throws Exception {
+        var results = List.of(
+                ItemBulkResultDto.builder().index(0).id(1L).build(),
+                ItemBulkResultDto.builder().index(1).error("name: must not be blank").build());
+
+        when(itemService.addAll(eq(owner.getId()), any()))
+                .thenReturn(results);
+
+        mockMvc.perform(post("/items/bulk")
+                        .header(X_SHARER_USER_ID_HEADER, owner.getId())
+                        .content(objectMapper.writeValueAsString(itemDto) + "\n{\"description\":\"No name\"}\n")
+                        .contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(results)));
+    }
+
+    @Test
+    void exportItems_whenServiceStreamsItems_thenEachIsWrittenAsNdjsonLine() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<ItemDto> sink = invocation.getArgument(1);
+            sink.accept(itemDto);
+            return null;
+        }).when(itemService).exportByUserId(eq(owner.getId()), any());
+
+        mockMvc.perform(get("/items/export")
+                        .header(X_SHARER_USER_ID_HEADER, owner.getId()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(objectMapper.writeValueAsString(itemDto) + "\n"));
+    }
+
+    @Test
+    void exportItems_whenUserDoesNotExist_thenReturnedNotFound() throws Exception {
+        doThrow(NotFoundException.class)
+                .when(itemService).exportByUserId(eq(owner.getId()), any());
+
+        mockMvc.perform(get("/items/export")
+                        .header(X_SHARER_USER_ID_HEADER, owner.getId()))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void getAllItemsByUserId() throws Exception {
         when(itemService.findAllByUserId(anyLong(), anyInt(), anyInt()))
@@ -118,6 +168,32 @@ class ItemControllerTest {
                 .andExpect(content().json(objectMapper.writeValueAsString(List.of(itemGetDto))));
     }
 
+    @Test
+    void getItemAvailability() throws Exception {
+        var from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        var to = from.plusDays(2);
+        var availability = ItemAvailabilityDto.builder()
+                .itemId(item.getId())
+                .from(from)
+                .to(to)
+                .ranges(List.of(
+                        AvailabilityRangeDto.builder().start(from).end(from.plusDays(1)).available(true).build(),
+                        AvailabilityRangeDto.builder().start(from.plusDays(1)).end(to).available(false).build()))
+                .build();
+
+        when(itemService.getAvailability(item.getId(), owner.getId(), from, to))
+                .thenReturn(availability);
+
+        mockMvc.perform(get("/items/{itemId}/availability", item.getId())
+                        .header(X_SHARER_USER_ID_HEADER, owner.getId())
+                        .param("from", from.toString())
+                        .param("to", to.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itemId").value(item.getId()))
+                .andExpect(jsonPath("$.ranges[0].available").value(true))
+                .andExpect(jsonPath("$.ranges[1].available").value(false));
+    }
+
     @Test
     void getItemById() throws Exception {
         when(itemService.getById(anyLong(), anyLong()))
@@ -134,7 +210,7 @@ class ItemControllerTest {
 
     @Test
     void searchItem() throws Exception {
-        when(itemService.search(anyLong(), anyString(), anyInt(), anyInt()))
+        when(itemService.search(anyLong(), anyString(), isNull(), isNull(), anyInt(), anyInt()))
                 .thenReturn(List.of(itemDto));
 
         mockMvc.perform(get("/items/search")
@@ -1,7 +1,14 @@
 package ru.practicum.shareit.item;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,9 +17,15 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.data.domain.Pageable.ofSize;
 import static org.springframework.data.domain.Pageable.unpaged;
 
 import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.ItemRequest;
@@ -25,9 +38,11 @@ import ru.practicum.shareit.user.repository.UserRepository;
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 public class ItemRepositoryTest {
 
+    private final BookingRepository bookingRepository;
     private final ItemRepository itemRepository;
     private final ItemRequestRepository itemRequestRepository;
     private final UserRepository userRepository;
+    private final EntityManagerFactory entityManagerFactory;
 
     private Item itemOne;
     private Item itemTwo;
@@ -102,6 +117,30 @@ public class ItemRepositoryTest {
         assertThat(actualList).isEmpty();
     }
 
+    @Test
+    void findByOwnerIdAndIdGreaterThanOrderByIdAsc() {
+        var firstPage = itemRepository.findByOwnerIdAndIdGreaterThanOrderByIdAsc(userOne.getId(), 0L, ofSize(1));
+        var nextPage = itemRepository.findByOwnerIdAndIdGreaterThanOrderByIdAsc(userOne.getId(),
+                firstPage.get(0).getId(), ofSize(1));
+        var lastPage = itemRepository.findByOwnerIdAndIdGreaterThanOrderByIdAsc(userOne.getId(),
+                nextPage.get(0).getId(), ofSize(1));
+
+        assertThat(firstPage).isEqualTo(List.of(itemOne));
+        assertThat(nextPage).isEqualTo(List.of(itemTwo));
+        assertThat(lastPage).isEmpty();
+    }
+
+    @Test
+    void streamAllByOwnerId_whenStreamed_thenItemsOfOwnerComeAsDtosInIdOrder() {
+        try (var items = itemRepository.streamAllByOwnerId(userOne.getId())) {
+            assertThat(items.collect(Collectors.toList()))
+                    .extracting(ItemDto::getId, ItemDto::getName, ItemDto::getOwnerId)
+                    .containsExactly(
+                            tuple(itemOne.getId(), itemOne.getName(), userOne.getId()),
+                            tuple(itemTwo.getId(), itemTwo.getName(), userOne.getId()));
+        }
+    }
+
     @Test
     void searchByText() {
         var actualList = itemRepository.search("search", unpaged()).getContent();
@@ -109,6 +148,20 @@ public class ItemRepositoryTest {
         assertThat(actualList).isEqualTo(List.of(itemUpperCase));
     }
 
+    @Test
+    void searchAvailable_whenFirstMatchIsBookedForPeriod_thenPageIsFilledWithNextMatch() {
+        var start = LocalDateTime.of(2030, 1, 10, 12, 0);
+        var end = start.plusDays(2);
+        saveBooking(itemOne, Status.APPROVED, start.minusDays(1), start.plusHours(1));
+        saveBooking(itemTwo, Status.WAITING, start, end);
+
+        var firstPage = itemRepository.searchAvailable("test item", start, end, ofSize(1));
+        var laterPeriod = itemRepository.searchAvailable("test item", start.plusHours(1), end, unpaged());
+
+        assertThat(firstPage).isEqualTo(List.of(itemTwo));
+        assertThat(laterPeriod).isEqualTo(List.of(itemOne, itemTwo));
+    }
+
     @Test
     void findAllByRequestIdIn() {
         var actualList = itemRepository.findAllByRequestIdIn(List.of(itemRequest.getId()));
@@ -116,8 +169,42 @@ public class ItemRepositoryTest {
         assertThat(actualList).isEqualTo(List.of(itemLowerCase));
     }
 
+    @Test
+    void saveAll_whenManyItemsAreSaved_thenIdsComeFromPooledSequenceAndInsertsAreBatched() {
+        itemRepository.flush();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        List<Item> items = itemRepository.saveAll(IntStream.range(0, 120)
+                .mapToObj(i -> Item.builder()
+                        .name("Bulk item " + i)
+                        .description("Bulk description")
+                        .available(true)
+                        .ownerId(userOne.getId())
+                        .build())
+                .collect(Collectors.toList()));
+        itemRepository.flush();
+
+        assertThat(items).extracting(Item::getId).doesNotHaveDuplicates().doesNotContainNull();
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(120);
+        // three sequence calls for 120 ids and one insert statement per batch of 50 rows
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(6);
+    }
+
+    private void saveBooking(Item item, Status status, LocalDateTime start, LocalDateTime end) {
+        bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(userOne)
+                .status(status)
+                .startDate(start)
+                .endDate(end)
+                .build());
+    }
+
     @AfterEach
     void wipeData() {
+        bookingRepository.deleteAll();
         itemRepository.deleteAll();
         itemRequestRepository.deleteAll();
         userRepository.deleteAll();
@@ -0,0 +1,138 @@
+package ru.practicum.shareit.item;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+
+public class ItemSearchIndexTest {
+
+    private ItemSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        searchIndex = new ItemSearchIndex();
+
+        searchIndex.put(item(3L, "Дрель", "Простая дрель", true, 1L));
+        searchIndex.put(item(1L, "Отвертка", "Аккумуляторная отвертка", true, 1L));
+        searchIndex.put(item(2L, "Клей Момент", "Тюбик суперклея марки Момент", true, 2L));
+        searchIndex.put(item(4L, "SEARCH", "SEARCH ITEM", true, 2L));
+        searchIndex.put(item(5L, "search", "search item", false, 2L));
+    }
+
+    @Test
+    void search_whenTextIsSubstringInAnyCase_thenReturnedAvailableItemsOrderedById() {
+        assertThat(ids(searchIndex.search("ДРЕль", 0, 10))).isEqualTo(List.of(3L));
+        assertThat(ids(searchIndex.search("аккУМУляторная", 0, 10))).isEqualTo(List.of(1L));
+        assertThat(ids(searchIndex.search("earc", 0, 10))).isEqualTo(List.of(4L));
+        assertThat(ids(searchIndex.search("т", 0, 10))).isEqualTo(List.of(1L, 2L, 3L));
+    }
+
+    @Test
+    void search_whenAllGramsPresentButNotAsSubstring_thenNothingReturned() {
+        searchIndex.put(item(6L, "abcxbcd", "", true, 1L));
+
+        assertThat(searchIndex.search("abcd", 0, 10)).isEmpty();
+        assertThat(ids(searchIndex.search("bcd", 0, 10))).isEqualTo(List.of(6L));
+    }
+
+    @Test
+    void search_whenOffsetAndSizeAreGiven_thenReturnedStablePage() {
+        assertThat(ids(searchIndex.search("о", 0, 2))).isEqualTo(List.of(1L, 2L));
+        assertThat(ids(searchIndex.search("о", 2, 2))).isEqualTo(List.of(3L));
+    }
+
+    @Test
+    void search_whenItemsAreExcluded_thenPageIsFilledWithFollowingMatches() {
+        assertThat(ids(searchIndex.search("о", 0, 2, excluding(1L)))).isEqualTo(List.of(2L, 3L));
+        assertThat(ids(searchIndex.search("о", 1, 2, excluding(2L)))).isEqualTo(List.of(3L));
+    }
+
+    @Test
+    void search_whenMatchesSpanSeveralBatches_thenOnlyMatchesAreCheckedForExclusion() {
+        searchIndex.clear();
+        searchIndex.putAll(LongStream.rangeClosed(1, 1_200)
+                .mapToObj(id -> item(id, id % 2 == 0 ? "Дрель " + id : "Пила " + id, "", true, 1L))
+                .collect(Collectors.toList()));
+        List<List<Long>> checked = new ArrayList<>();
+
+        var page = searchIndex.search("дрель", 250, 2, ids -> {
+            checked.add(ids);
+            return ids.stream().filter(id -> id % 4 == 0).collect(Collectors.toSet());
+        });
+
+        // the matches left once every fourth id is excluded are 2, 6, 10...
+        assertThat(ids(page)).isEqualTo(List.of(1_002L, 1_006L));
+        assertThat(checked).hasSize(2)
+                .allSatisfy(ids -> assertThat(ids).allMatch(id -> id % 2 == 0));
+        assertThat(checked.get(0)).hasSize(252).startsWith(2L, 4L);
+        assertThat(checked.get(1)).hasSize(348).startsWith(506L);
+    }
+
+    @Test
+    void put_whenItemIsUpdated_thenIndexReflectsNewState() {
+        searchIndex.put(item(3L, "Перфоратор", "Мощный", true, 1L));
+        assertThat(searchIndex.search("дрель", 0, 10)).isEmpty();
+        assertThat(ids(searchIndex.search("перфо", 0, 10))).isEqualTo(List.of(3L));
+
+        searchIndex.put(item(3L, "Перфоратор", "Мощный", false, 1L));
+        assertThat(searchIndex.search("перфо", 0, 10)).isEmpty();
+
+        searchIndex.put(item(5L, "search", "search item", true, 2L));
+        assertThat(ids(searchIndex.search("search", 0, 10))).isEqualTo(List.of(4L, 5L));
+    }
+
+    @Test
+    void removeAllByOwnerId() {
+        searchIndex.removeAllByOwnerId(2L);
+
+        assertThat(searchIndex.size()).isEqualTo(2);
+        assertThat(searchIndex.search("search", 0, 10)).isEmpty();
+    }
+
+    @Test
+    void putAll_whenItemsAreOutOfOrderOrRepeated_thenIndexedAsWithPut() {
+        searchIndex.clear();
+        searchIndex.putAll(List.of(
+                item(12L, "Шуруповерт", "Шуруповерт с битами", true, 1L),
+                item(10L, "Шуруповерт", "Старый", true, 1L),
+                item(11L, "Шуруповерт", "Сломан", false, 1L),
+                item(10L, "Отвертка", "Крестовая", true, 1L)
+        ));
+
+        assertThat(searchIndex.size()).isEqualTo(3);
+        assertThat(ids(searchIndex.search("шуруп", 0, 10))).isEqualTo(List.of(12L));
+        assertThat(ids(searchIndex.search("отв", 0, 10))).isEqualTo(List.of(10L));
+        assertThat(ids(searchIndex.search("т", 0, 10))).isEqualTo(List.of(10L, 12L));
+    }
+
+    private static Item item(long id, String name, String description, boolean available, long ownerId) {
+        return Item.builder()
+                .id(id)
+                .name(name)
+                .description(description)
+                .available(available)
+                .ownerId(ownerId)
+                .build();
+    }
+
+    private static Function<List<Long>, Set<Long>> excluding(Long... excluded) {
+        return ids -> Set.copyOf(ids.stream().filter(List.of(excluded)::contains).collect(Collectors.toList()));
+    }
+
+    private static List<Long> ids(List<Item> items) {
+        return items.stream()
+                .map(Item::getId)
+                .collect(Collectors.toList());
+    }
+}
@@ -179,9 +179,10 @@ public class ItemServiceImplIT {
 
         var actualCommentDto = itemService.addComment(userId, itemId, commentDto);
 
-        var savedCommentDto = commentMapper
-                .toCommentDto(commentRepository.findById(actualCommentDto.getId())
-                        .orElseThrow(() -> new NotFoundException("Comment hasn't found in DB")));
+        var savedCommentDto = commentRepository.findAllByItemIds(List.of(itemId)).stream()
+                .filter(comment -> comment.getId().equals(actualCommentDto.getId()))
+                .findFirst()
+                .orElseThrow(() -> new NotFoundException("Comment hasn't found in DB"));
 
         actualCommentDto.setCreated(actualCommentDto.getCreated().truncatedTo(MILLIS));
         savedCommentDto.setCreated(savedCommentDto.getCreated().truncatedTo(MILLIS));
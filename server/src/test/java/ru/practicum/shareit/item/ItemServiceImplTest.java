@@ -1,5 +1,10 @@
 package ru.practicum.shareit.item;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,17 +21,26 @@ import org.springframework.data.domain.PageImpl;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import ru.practicum.shareit.booking.conflict.AvailabilityRange;
+import ru.practicum.shareit.booking.conflict.BookingConflictIndex;
 import ru.practicum.shareit.common.CustomPageRequest;
+import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.cache.ItemViewCache;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.item.search.ItemSearchEngineFactory;
+import ru.practicum.shareit.item.search.LikeItemSearchEngine;
+import ru.practicum.shareit.item.service.ItemBulkImporter;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
 import ru.practicum.shareit.user.repository.UserRepository;
 
@@ -41,6 +55,16 @@ public class ItemServiceImplTest {
     private UserRepository userRepository;
     @Mock
     private ItemMapper itemMapper;
+    @Mock
+    private ItemSearchEngineFactory searchEngineFactory;
+    @Mock
+    private ItemSearchEngine searchEngine;
+    @Mock
+    private ItemViewCache itemViewCache;
+    @Mock
+    private BookingConflictIndex conflictIndex;
+    @Mock
+    private ItemBulkImporter bulkImporter;
 
 
     @Test
@@ -62,10 +86,13 @@ public class ItemServiceImplTest {
                 .thenReturn(item);
         when(itemMapper.toItemDto(any(Item.class)))
                 .thenReturn(expectedItemDto);
+        when(searchEngineFactory.getEngine())
+                .thenReturn(searchEngine);
 
         ItemDto actualItemDto = itemService.add(initialItem, userId);
 
         assertThat(actualItemDto).isEqualTo(expectedItemDto);
+        verify(searchEngine).index(item);
     }
 
     @Test
@@ -75,6 +102,53 @@ public class ItemServiceImplTest {
         verify(itemRepository, never()).save(new Item());
     }
 
+    @Test
+    void addAll_whenOwnerDoesNotExist_thenThrowNotFoundExceptionBeforeReadingRows() throws IOException {
+        InputStream items = new ByteArrayInputStream("[{\"name\":\"Drill\"}]".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(NotFoundException.class, () -> itemService.addAll(999L, items));
+
+        verify(bulkImporter, never()).importItems(anyLong(), any());
+        assertThat(items.available()).isPositive();
+    }
+
+    @Test
+    void getAvailability_whenPeriodStartsInPast_thenCalendarIsAskedFromNow() {
+        long itemId = 1L;
+        long userId = 2L;
+        var from = LocalDateTime.now().minusDays(1);
+        var to = LocalDateTime.now().plusDays(1);
+        var busyStart = to.minusHours(2);
+
+        when(userRepository.existsById(userId))
+                .thenReturn(true);
+        when(itemRepository.existsById(itemId))
+                .thenReturn(true);
+        when(conflictIndex.getAvailability(eq(itemId), any(LocalDateTime.class), eq(to)))
+                .thenReturn(List.of(new AvailabilityRange(busyStart, to, false)));
+
+        var availability = itemService.getAvailability(itemId, userId, from, to);
+
+        assertThat(availability.getFrom()).isAfter(from);
+        assertThat(availability.getTo()).isEqualTo(to);
+        assertThat(availability.getRanges()).hasSize(1);
+        assertThat(availability.getRanges().get(0).getStart()).isEqualTo(busyStart);
+        assertThat(availability.getRanges().get(0).isAvailable()).isFalse();
+    }
+
+    @Test
+    void getAvailability_whenPeriodIsTooLong_throwBadRequestException() {
+        var from = LocalDateTime.now();
+
+        when(userRepository.existsById(anyLong()))
+                .thenReturn(true);
+
+        assertThrows(BadRequestException.class,
+                () -> itemService.getAvailability(1L, 2L, from, from.plusDays(400)));
+        assertThrows(BadRequestException.class,
+                () -> itemService.getAvailability(1L, 2L, from, from));
+    }
+
     @Test
     void updateItem() {
         long itemId = 1L;
@@ -96,11 +170,15 @@ public class ItemServiceImplTest {
 
         when(itemRepository.findById(itemId))
                 .thenReturn(Optional.of(item));
+        when(searchEngineFactory.getEngine())
+                .thenReturn(searchEngine);
 
         var expectedItemDto = itemMapper.toItemDto(item);
         var actualItemDto = itemService.update(itemDto, itemId, userId);
 
         assertThat(actualItemDto).isEqualTo(expectedItemDto);
+        verify(searchEngine).index(item);
+        verify(itemViewCache).evict(itemId);
     }
 
     @Test
@@ -140,11 +218,13 @@ public class ItemServiceImplTest {
                 .thenReturn(itemsPage);
         when(userRepository.existsById(anyLong()))
                 .thenReturn(true);
+        when(searchEngineFactory.getEngine())
+                .thenReturn(new LikeItemSearchEngine(itemRepository));
 
         List<ItemDto> expectedList = itemsPage.getContent().stream()
                 .map(itemMapper::toItemDto)
                 .collect(toList());
-        List<ItemDto> actualList = itemService.search(userId, text, from, size);
+        List<ItemDto> actualList = itemService.search(userId, text, null, null, from, size);
 
         assertThat(expectedList).isEqualTo(actualList);
     }
@@ -0,0 +1,108 @@
+package ru.practicum.shareit.item;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ru.practicum.shareit.item.cache.ItemView;
+import ru.practicum.shareit.item.cache.ItemViewCache;
+import ru.practicum.shareit.item.dto.ItemGetDto;
+
+public class ItemViewCacheTest {
+
+    private static final long ITEM_ID = 1L;
+    private static final long OWNER_ID = 10L;
+    private static final long OTHER_USER_ID = 20L;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private SimpleMeterRegistry meterRegistry;
+    private ItemViewCache itemViewCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        itemViewCache = new ItemViewCache(true, 100, Duration.ofMinutes(10), meterRegistry);
+    }
+
+    @Test
+    void get_whenViewIsCached_thenLoaderIsNotCalledAgain() {
+        var first = itemViewCache.get(ITEM_ID, OWNER_ID, loader("owner view", null));
+        var second = itemViewCache.get(ITEM_ID, OWNER_ID, loader("owner view", null));
+
+        assertThat(second).isSameAs(first);
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void get_whenOwnerAndOtherUserRequestItem_thenViewsAreCachedSeparately() {
+        itemViewCache.get(ITEM_ID, OWNER_ID, loader("owner view", null));
+
+        assertThat(itemViewCache.get(ITEM_ID, OTHER_USER_ID, loader("public view", null)).getName())
+                .isEqualTo("public view");
+        assertThat(itemViewCache.get(ITEM_ID, OWNER_ID, loader("other", null)).getName())
+                .isEqualTo("owner view");
+        assertThat(itemViewCache.get(ITEM_ID, OTHER_USER_ID + 1, loader("other", null)).getName())
+                .isEqualTo("public view");
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void evict_thenViewIsLoadedAgain() {
+        itemViewCache.get(ITEM_ID, OWNER_ID, loader("owner view", null));
+
+        itemViewCache.evict(ITEM_ID);
+
+        assertThat(itemViewCache.get(ITEM_ID, OWNER_ID, loader("updated", null)).getName())
+                .isEqualTo("updated");
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void get_whenItemIsEvictedWhileLoading_thenStaleViewIsNotCached() {
+        itemViewCache.get(ITEM_ID, OWNER_ID, () -> {
+            itemViewCache.evict(ITEM_ID);
+            return loader("stale", null).get();
+        });
+
+        assertThat(itemViewCache.get(ITEM_ID, OWNER_ID, loader("fresh", null)).getName())
+                .isEqualTo("fresh");
+    }
+
+    @Test
+    void get_whenBookingBoundaryHasPassed_thenViewIsLoadedAgain() {
+        itemViewCache.get(ITEM_ID, OWNER_ID, loader("owner view", LocalDateTime.now().minusSeconds(1)));
+        itemViewCache.get(ITEM_ID, OWNER_ID, loader("owner view", null));
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void get_whenCacheIsDisabled_thenViewIsAlwaysLoaded() {
+        itemViewCache = new ItemViewCache(false, 100, Duration.ofMinutes(10), meterRegistry);
+
+        itemViewCache.get(ITEM_ID, OWNER_ID, loader("owner view", null));
+        itemViewCache.get(ITEM_ID, OWNER_ID, loader("owner view", null));
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    private Supplier<ItemView> loader(String name, LocalDateTime validUntil) {
+        return () -> {
+            loads.incrementAndGet();
+            return new ItemView(ItemGetDto.builder()
+                    .id(ITEM_ID)
+                    .name(name)
+                    .build(), OWNER_ID, validUntil);
+        };
+    }
+}
@@ -20,7 +20,11 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import ru.practicum.shareit.booking.conflict.BookingConflictIndex;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.cache.ItemViewCache;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.item.search.ItemSearchEngineFactory;
 import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.user.service.UserServiceImpl;
 
@@ -33,6 +37,14 @@ public class UserServiceImplTest {
     private UserMapper userMapper;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private ItemSearchEngineFactory searchEngineFactory;
+    @Mock
+    private ItemSearchEngine searchEngine;
+    @Mock
+    private ItemViewCache itemViewCache;
+    @Mock
+    private BookingConflictIndex conflictIndex;
 
     @Test
     void getAllUsers() {
@@ -120,8 +132,13 @@ public class UserServiceImplTest {
         when(userRepository.existsById(anyLong()))
                 .thenReturn(true);
 
+        when(searchEngineFactory.getEngine())
+                .thenReturn(searchEngine);
+
         userService.delete(userId);
 
         verify(userRepository).deleteById(userId);
+        verify(searchEngine).removeAllByOwnerId(userId);
+        verify(itemViewCache).evictAll();
     }
 }
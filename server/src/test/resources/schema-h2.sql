@@ -0,0 +1,5 @@
+CREATE TRIGGER IF NOT EXISTS bookings_approved_no_overlap
+    BEFORE INSERT, UPDATE
+    ON bookings
+    FOR EACH ROW
+CALL 'ru.practicum.shareit.booking.conflict.H2BookingOverlapTrigger';